@@ -0,0 +1,17 @@
+package hwu.elixir.scrape.exceptions;
+
+public class NotModifiedException extends Exception {
+
+	/**
+	 * 304 returned by server when revalidating a URL that was scraped before.
+	 * 
+	 * The markup obtained last time is still current, so the page does not need
+	 * to be scraped again.
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	public NotModifiedException(String url) {
+		super(url+" has not been modified since it was last scraped");
+	}
+}
@@ -0,0 +1,173 @@
+package hwu.elixir.scrape.fetch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches static pages asynchronously and hands them to a CPU sized pool for
+ * extraction. Fetches are sent with {@link java.net.http.HttpClient#sendAsync}
+ * on the client of a {@link StaticFetchEngine}, so a large number of requests
+ * can be in flight without a thread each.
+ *
+ * At most <i>maxInFlight</i> pages are between being submitted and being
+ * finished with, i.e., extracted and handed to the caller's completion handler;
+ * {@link #submit(String, long, Function, BiConsumer)} blocks until there is
+ * room. This bounds both the open requests and the fetched pages waiting for an
+ * extraction thread.
+ *
+ * Usage: {@link #submit(String, long, Function, BiConsumer)} every page,
+ * {@link #awaitCompletion()}, which also waits for the completion handlers,
+ * then {@link #shutdown()}.
+ */
+public class AsyncFetchPipeline {
+
+	private static Logger logger = LoggerFactory.getLogger(AsyncFetchPipeline.class.getName());
+
+	private final StaticFetchEngine engine;
+	private final int maxInFlight;
+	private final Semaphore inFlight;
+	private final ExecutorService extraction;
+
+	/**
+	 * @param engine            Engine whose client and request settings are used
+	 * @param maxInFlight       Maximum number of pages being fetched or waiting
+	 *                          for extraction
+	 * @param extractionThreads Number of threads extracting pages
+	 */
+	public AsyncFetchPipeline(StaticFetchEngine engine, int maxInFlight, int extractionThreads) {
+		this.engine = engine;
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.inFlight = new Semaphore(this.maxInFlight);
+
+		AtomicInteger count = new AtomicInteger();
+		this.extraction = Executors.newFixedThreadPool(Math.max(1, extractionThreads), task -> {
+			Thread thread = new Thread(task, "extraction-" + count.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+		logger.info("async fetch pipeline: " + this.maxInFlight + " pages in flight, " + extractionThreads
+				+ " extraction threads");
+	}
+
+	/**
+	 * Fetches a page and then runs the extraction on it. Blocks whilst
+	 * <i>maxInFlight</i> pages are already in the pipeline.
+	 *
+	 * @param url         The page
+	 * @param delayMillis How long to wait before sending the request, e.g., to be
+	 *                    polite to its host
+	 * @param extraction  Runs on an extraction thread with the response, whatever
+	 *                    its status code
+	 * @return Completes with the result of the extraction, or exceptionally if the
+	 *         page could not be fetched or the extraction failed
+	 * @throws InterruptedException whilst waiting for room in the pipeline
+	 */
+	public <T> CompletableFuture<T> submit(String url, long delayMillis, Function<FetchResult, T> extraction)
+			throws InterruptedException {
+		return submit(url, delayMillis, extraction, (result, failure) -> {
+		});
+	}
+
+	/**
+	 * As {@link #submit(String, long, Function)}, also running a completion
+	 * handler once the page is finished with, whatever the outcome. The page
+	 * keeps its place in the pipeline until the handler has returned, so
+	 * {@link #awaitCompletion()} also waits for it.
+	 *
+	 * @param url         The page
+	 * @param delayMillis How long to wait before sending the request
+	 * @param extraction  Runs on an extraction thread with the response
+	 * @param done        Runs with the result of the extraction, or with the
+	 *                    failure
+	 * @return Completes once the handler has run
+	 * @throws InterruptedException whilst waiting for room in the pipeline; the
+	 *                              page is then not submitted and the handler
+	 *                              never runs
+	 */
+	public <T> CompletableFuture<T> submit(String url, long delayMillis, Function<FetchResult, T> extraction,
+			BiConsumer<? super T, ? super Throwable> done) throws InterruptedException {
+		return submit(url, Collections.emptyMap(), delayMillis, extraction, done);
+	}
+
+	/**
+	 * As {@link #submit(String, long, Function, BiConsumer)}, sending the given
+	 * headers with the request, e.g., to ask whether the page has changed.
+	 *
+	 * @param url         The page
+	 * @param headers     Headers added to the request
+	 * @param delayMillis How long to wait before sending the request
+	 * @param extraction  Runs on an extraction thread with the response
+	 * @param done        Runs with the result of the extraction, or with the
+	 *                    failure
+	 * @return Completes once the handler has run
+	 * @throws InterruptedException whilst waiting for room in the pipeline; the
+	 *                              page is then not submitted and the handler
+	 *                              never runs
+	 */
+	public <T> CompletableFuture<T> submit(String url, Map<String, String> headers, long delayMillis,
+			Function<FetchResult, T> extraction, BiConsumer<? super T, ? super Throwable> done)
+			throws InterruptedException {
+		inFlight.acquire();
+
+		CompletableFuture<T> future;
+		try {
+			HttpRequest.Builder builder = engine.newRequest(url);
+			headers.forEach(builder::header);
+			HttpRequest request = builder.build();
+			Executor start = delayMillis > 0 ? CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS)
+					: Runnable::run;
+			future = CompletableFuture.supplyAsync(() -> request, start)
+					.thenCompose(r -> engine.getClient().sendAsync(r, HttpResponse.BodyHandlers.ofByteArray()))
+					.thenApplyAsync(response -> extraction.apply(toResult(response)), this.extraction);
+		} catch (IllegalArgumentException e) {
+			future = CompletableFuture.failedFuture(e);
+		}
+
+		// the place is given up last, after the handler
+		CompletableFuture<T> finished = future.whenComplete(done);
+		finished.whenComplete((result, failure) -> inFlight.release());
+		return finished;
+	}
+
+	/**
+	 * Waits until every page submitted so far has been extracted and its
+	 * completion handler has run.
+	 *
+	 * @throws InterruptedException
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		inFlight.acquire(maxInFlight);
+		inFlight.release(maxInFlight);
+	}
+
+	/**
+	 * Stops the extraction threads once the pages already submitted are done.
+	 */
+	public void shutdown() {
+		extraction.shutdown();
+	}
+
+	private static FetchResult toResult(HttpResponse<byte[]> response) {
+		try {
+			return StaticFetchEngine.toResult(response);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
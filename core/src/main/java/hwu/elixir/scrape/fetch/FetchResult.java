@@ -0,0 +1,96 @@
+package hwu.elixir.scrape.fetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * The raw outcome of fetching a single URL with the {@link StaticFetchEngine}.
+ *
+ */
+public class FetchResult {
+
+	private final String url;
+	private final int statusCode;
+	private final HttpHeaders headers;
+	private final byte[] body;
+
+	public FetchResult(String url, int statusCode, HttpHeaders headers, byte[] body) {
+		this.url = url;
+		this.statusCode = statusCode;
+		this.headers = headers;
+		this.body = body;
+	}
+
+	/**
+	 * @return The URL the content was finally obtained from, i.e., after any
+	 *         redirects
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return true for any 2xx status code
+	 */
+	public boolean isSuccess() {
+		return statusCode >= 200 && statusCode < 300;
+	}
+
+	/**
+	 * @param name Header name; case insensitive
+	 * @return First value of the header or null if it was not sent
+	 */
+	public String getHeader(String name) {
+		return headers.firstValue(name).orElse(null);
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	/**
+	 * @return Charset given in the Content-Type header, or null if none (or an
+	 *         unknown one) was given
+	 */
+	public String getCharset() {
+		String contentType = getHeader("Content-Type");
+		if (contentType == null)
+			return null;
+
+		for (String param : contentType.split(";")) {
+			param = param.trim();
+			if (param.toLowerCase().startsWith("charset=")) {
+				String charset = param.substring(8).replace("\"", "").replace("'", "").trim();
+				try {
+					if (Charset.isSupported(charset))
+						return charset;
+				} catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Parses the body as HTML in the same way as JSoup does for its own
+	 * connections; if no charset was sent it is detected from the document.
+	 *
+	 * @return The parsed body
+	 * @throws IOException
+	 */
+	public Document parse() throws IOException {
+		return Jsoup.parse(new ByteArrayInputStream(body), getCharset(), url);
+	}
+}
@@ -0,0 +1,120 @@
+package hwu.elixir.scrape.fetch;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import hwu.elixir.utils.PolitenessScheduler;
+
+/**
+ * Remembers, per host, whether pages need to be rendered by Selenium for their
+ * markup to be found. Used when scraping in auto mode: a page is fetched
+ * statically first and only rendered if the static HTML holds no markup.
+ * <ul>
+ * <li>Once static HTML of a host has given markup, pages of that host whose
+ * static HTML has no markup are taken to have none and are not rendered.
+ * Every {@link #REPROBE_INTERVAL}th such page is still rendered in case the
+ * site has changed.</li>
+ * <li>Once rendering was needed to find markup on a host, its pages are
+ * rendered straight away. Every {@link #REPROBE_INTERVAL}th page is still
+ * tried statically in case the site has changed.</li>
+ * <li>Pages of hosts not seen yet are fetched statically and rendered if no
+ * markup is found.</li>
+ * </ul>
+ *
+ * Based on singleton pattern.
+ */
+public class FetchStrategyCache {
+
+	public enum Strategy {
+		STATIC, DYNAMIC
+	}
+
+	static final int REPROBE_INTERVAL = 50;
+
+	// JSON-LD script block or an RDFa vocab attribute
+	private static final Pattern MARKUP = Pattern
+			.compile("application/ld\\+json|\\svocab\\s*=\\s*[\"']?https?://", Pattern.CASE_INSENSITIVE);
+
+	private static FetchStrategyCache cache = null;
+	private static Logger logger = LoggerFactory.getLogger(FetchStrategyCache.class.getName());
+
+	private final Map<String, Strategy> hosts = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> rendered = new ConcurrentHashMap<>();
+	// pages of static hosts without markup
+	private final Map<String, AtomicInteger> unmarked = new ConcurrentHashMap<>();
+
+	FetchStrategyCache() {
+	}
+
+	/**
+	 * Get the cache. If none exists, it creates one.
+	 *
+	 * @return
+	 */
+	public static synchronized FetchStrategyCache getInstance() {
+		if (cache == null) {
+			cache = new FetchStrategyCache();
+		}
+		return cache;
+	}
+
+	/**
+	 * @param url
+	 * @return The strategy that gave markup for the host of the URL, or null if
+	 *         not known yet
+	 */
+	public Strategy get(String url) {
+		return hosts.get(PolitenessScheduler.getHost(url));
+	}
+
+	/**
+	 * @param url The page about to be scraped
+	 * @return true if the page should be rendered without trying a static fetch
+	 *         first
+	 */
+	public boolean renderFirst(String url) {
+		String host = PolitenessScheduler.getHost(url);
+		if (hosts.get(host) != Strategy.DYNAMIC)
+			return false;
+		return rendered.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet() % REPROBE_INTERVAL != 0;
+	}
+
+	/**
+	 * @param url The page about to be scraped
+	 * @return true if a page of this host whose static HTML has no markup should
+	 *         be rendered
+	 */
+	public boolean renderIfNoMarkup(String url) {
+		String host = PolitenessScheduler.getHost(url);
+		if (hosts.get(host) != Strategy.STATIC)
+			return true;
+		return unmarked.computeIfAbsent(host, h -> new AtomicInteger()).incrementAndGet() % REPROBE_INTERVAL == 0;
+	}
+
+	/**
+	 * Records the strategy that gave markup for a page.
+	 *
+	 * @param url      The page
+	 * @param strategy How its markup was obtained
+	 */
+	public void record(String url, Strategy strategy) {
+		String host = PolitenessScheduler.getHost(url);
+		Strategy previous = hosts.put(host, strategy);
+		if (previous != strategy)
+			logger.info("pages of " + host + " will be fetched " + strategy.name().toLowerCase()
+					+ (previous == null ? "" : " (was " + previous.name().toLowerCase() + ")"));
+	}
+
+	/**
+	 * @param html
+	 * @return true if the HTML has a JSON-LD block or an RDFa vocab
+	 */
+	public static boolean containsMarkup(String html) {
+		return html != null && MARKUP.matcher(html).find();
+	}
+}
@@ -0,0 +1,215 @@
+package hwu.elixir.scrape.fetch;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import hwu.elixir.utils.ScraperProperties;
+
+/**
+ * Append only, compressed archive of the HTML obtained for each page scraped,
+ * whether fetched statically or rendered by Selenium. Pages can then be
+ * extracted again (e.g., after a fix to the triple processing) without any
+ * network access; see
+ * {@link hwu.elixir.scrape.scraper.examples.ArchiveReprocessor}.
+ *
+ * Each page is stored as one record holding the URL, the time it was fetched
+ * and the HTML. Every record is written as a separate gzip member, so the
+ * archive can be appended to across runs and a crash can at most lose the
+ * record being written. The HTML stored is that handed to the extraction, i.e.,
+ * after {@code fixAny23WeirdIssues}.
+ *
+ * The archive is written to the file given by property <i>htmlArchiveFile</i>;
+ * if that is empty nothing is archived.
+ *
+ * Based on singleton pattern.
+ */
+public class HtmlArchive {
+
+	private static final int RECORD_MAGIC = 0x424D4841; // "BMHA"
+
+	private static HtmlArchive archive = null;
+	private static Logger logger = LoggerFactory.getLogger(HtmlArchive.class.getName());
+
+	private final File file;
+	private OutputStream out = null; // opened on first append; guarded by this
+
+	/**
+	 * A page read back from the archive.
+	 */
+	public static class ArchivedPage {
+		private final String url;
+		private final long fetchTime;
+		private final String html;
+
+		ArchivedPage(String url, long fetchTime, String html) {
+			this.url = url;
+			this.fetchTime = fetchTime;
+			this.html = html;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		/**
+		 * @return When the page was fetched, in milliseconds since the epoch
+		 */
+		public long getFetchTime() {
+			return fetchTime;
+		}
+
+		public String getHtml() {
+			return html;
+		}
+	}
+
+	/**
+	 * @param file Archive to append to, or null to disable archiving
+	 */
+	HtmlArchive(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Get the archive. If none exists, it creates one for the file named in the
+	 * properties file.
+	 *
+	 * @return
+	 */
+	public static synchronized HtmlArchive getInstance() {
+		if (archive == null) {
+			String fileName = ScraperProperties.getInstance().getHtmlArchiveFile();
+			archive = new HtmlArchive(fileName.isEmpty() ? null : new File(fileName));
+		}
+		return archive;
+	}
+
+	/**
+	 * @return true if pages are being archived
+	 */
+	public boolean isEnabled() {
+		return file != null;
+	}
+
+	/**
+	 * Adds a page to the end of the archive. Does nothing if archiving is
+	 * disabled. A page that cannot be archived is logged and otherwise ignored;
+	 * it must not stop the scrape.
+	 *
+	 * @param url       The page
+	 * @param fetchTime When the page was fetched, in milliseconds since the epoch
+	 * @param html      The HTML of the page
+	 */
+	public void append(String url, long fetchTime, String html) {
+		if (!isEnabled() || html == null)
+			return;
+
+		// compress outside the lock; only the write itself is serialised
+		byte[] record;
+		try {
+			record = toRecord(url, fetchTime, html);
+		} catch (IOException e) {
+			logger.error("Cannot archive html of " + url, e);
+			return;
+		}
+
+		synchronized (this) {
+			try {
+				if (out == null) {
+					File parent = file.getAbsoluteFile().getParentFile();
+					if (parent != null && !parent.exists())
+						parent.mkdirs();
+					out = new FileOutputStream(file, true);
+				}
+				out.write(record);
+				out.flush();
+			} catch (IOException e) {
+				logger.error("Cannot write html of " + url + " to archive " + file, e);
+			}
+		}
+	}
+
+	/**
+	 * Closes the archive file. It is opened again if more pages are appended.
+	 */
+	public synchronized void close() {
+		if (out == null)
+			return;
+		try {
+			out.close();
+		} catch (IOException e) {
+			logger.error("Cannot close archive " + file, e);
+		}
+		out = null;
+	}
+
+	/**
+	 * Reads every page of an archive in the order they were written. A record
+	 * that was only partly written (e.g., the scraper was killed) ends the read.
+	 *
+	 * @param archiveFile The archive
+	 * @param consumer    Called for each page
+	 * @return Number of pages read
+	 * @throws IOException if the archive cannot be read
+	 */
+	public static long read(File archiveFile, Consumer<ArchivedPage> consumer) throws IOException {
+		long count = 0;
+		// GZIPInputStream reads consecutive gzip members as one stream
+		try (DataInputStream in = new DataInputStream(
+				new GZIPInputStream(new BufferedInputStream(new FileInputStream(archiveFile)), 65536))) {
+			while (true) {
+				int magic;
+				try {
+					magic = in.readInt();
+				} catch (EOFException end) {
+					break;
+				}
+				if (magic != RECORD_MAGIC)
+					throw new IOException("Corrupt record " + count + " in archive " + archiveFile);
+
+				try {
+					String url = in.readUTF();
+					long fetchTime = in.readLong();
+					byte[] html = new byte[in.readInt()];
+					in.readFully(html);
+					consumer.accept(new ArchivedPage(url, fetchTime, new String(html, StandardCharsets.UTF_8)));
+					count++;
+				} catch (EOFException truncated) {
+					logger.warn("Archive " + archiveFile + " ends with an incomplete record; ignored");
+					break;
+				}
+			}
+		} catch (EOFException truncated) {
+			logger.warn("Archive " + archiveFile + " ends with an incomplete record; ignored");
+		}
+		return count;
+	}
+
+	private static byte[] toRecord(String url, long fetchTime, String html) throws IOException {
+		byte[] body = html.getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (DataOutputStream record = new DataOutputStream(new GZIPOutputStream(bytes))) {
+			record.writeInt(RECORD_MAGIC);
+			record.writeUTF(url);
+			record.writeLong(fetchTime);
+			record.writeInt(body.length);
+			record.write(body);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,348 @@
+package hwu.elixir.scrape.fetch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.jsonldjava.core.Context;
+import com.github.jsonldjava.core.DocumentLoader;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.RemoteDocument;
+import com.github.jsonldjava.utils.JsonUtils;
+
+import hwu.elixir.utils.ScraperProperties;
+
+/**
+ * Keeps the schema.org JSON-LD context in memory, so that JSON-LD using it can
+ * be processed without fetching it from schema.org for every page.
+ *
+ * The copy served at first is the one last saved to property
+ * <i>schemaContextCacheFile</i> or, if there is none, the snapshot shipped in
+ * {@value #SNAPSHOT}, which jarcache.json also registers with the jsonld-java
+ * document loader, so that Any23 uses it too. Downloading the context from
+ * <i>schemaContext</i> only refreshes the copy: it is done in the background
+ * when the first page needs the context (unless a saved copy is not yet older
+ * than <i>schemaContextRefreshHours</i>) and again each time the copy is older
+ * than that. Pages never wait for it, and the previous copy is kept if the
+ * download fails. A refresh interval of 0 never downloads the context.
+ *
+ * {@link #getDocumentLoader()} gives a JSON-LD document loader that serves the
+ * context for every address under which schema.org publishes it, and
+ * {@link #getProcessedContext(String)} the context already processed, so it
+ * need not be processed again for every block of JSON-LD.
+ *
+ * Based on singleton pattern.
+ */
+public class SchemaContextCache {
+
+	// the snapshot of the context shipped on the classpath
+	static final String SNAPSHOT = "contexts/schemaorg.jsonld";
+
+	// download again this soon after a failed download
+	static final long RETRY_MILLIS = 60 * 60 * 1000L;
+
+	// addresses under which schema.org publishes its context
+	static final List<String> SCHEMA_ORG_CONTEXTS = Collections.unmodifiableList(Arrays.asList(
+			"https://schema.org/docs/jsonldcontext.jsonld", "http://schema.org/docs/jsonldcontext.jsonld",
+			"https://schema.org/docs/jsonldcontext.json", "http://schema.org/docs/jsonldcontext.json",
+			"https://schema.org", "http://schema.org", "https://schema.org/", "http://schema.org/"));
+
+	private static SchemaContextCache cache = null;
+	private static Logger logger = LoggerFactory.getLogger(SchemaContextCache.class.getName());
+
+	private final Set<String> urls;
+	private final long refreshMillis;
+	private final Path cacheFile;
+	private final Callable<String> download;
+
+	// the copy served, with the context it holds processed; null without a saved copy or snapshot
+	private volatile Copy copy = null;
+	private volatile long nextRefresh;
+	private final AtomicBoolean refreshing = new AtomicBoolean(false);
+	private final DocumentLoader loader = new CachedDocumentLoader();
+
+	/**
+	 * @param urls          Addresses the context is served for
+	 * @param refreshMillis Age after which the context is downloaded again; 0 for
+	 *                      never
+	 * @param cacheFile     Where downloaded copies are saved; null to keep them in
+	 *                      memory only
+	 * @param snapshot      The context served if no copy has been saved; null for
+	 *                      none
+	 * @param download      Downloads the context
+	 */
+	SchemaContextCache(Collection<String> urls, long refreshMillis, Path cacheFile, String snapshot,
+			Callable<String> download) {
+		this.urls = new HashSet<>(urls);
+		this.refreshMillis = refreshMillis;
+		this.cacheFile = cacheFile;
+		this.download = download;
+		nextRefresh = 0; // without a saved copy, refreshed as soon as it is first needed
+
+		if (cacheFile != null && Files.isReadable(cacheFile)) {
+			try {
+				copy = parse(new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8));
+				nextRefresh = Files.getLastModifiedTime(cacheFile).toMillis() + refreshMillis;
+				logger.info("schema.org context loaded from " + cacheFile);
+			} catch (IOException e) {
+				logger.warn("cannot read schema.org context from " + cacheFile, e);
+			}
+		}
+		if (copy == null && snapshot != null) {
+			try {
+				copy = parse(snapshot);
+			} catch (IOException e) {
+				logger.error("the schema.org context snapshot is not valid", e);
+			}
+		}
+	}
+
+	/**
+	 * Get the cache. If none exists, it creates one using properties
+	 * <i>schemaContext</i>, <i>schemaContextRefreshHours</i> and
+	 * <i>schemaContextCacheFile</i>.
+	 *
+	 * @return
+	 */
+	public static synchronized SchemaContextCache getInstance() {
+		if (cache == null) {
+			ScraperProperties properties = ScraperProperties.getInstance();
+			String contextUrl = properties.getSchemaContext();
+			if (contextUrl == null || !contextUrl.startsWith("http"))
+				contextUrl = SCHEMA_ORG_CONTEXTS.get(0);
+
+			List<String> urls = new ArrayList<>(SCHEMA_ORG_CONTEXTS);
+			urls.add(contextUrl);
+			String file = properties.getSchemaContextCacheFile();
+			Path cacheFile = file.isEmpty() ? null : Paths.get(file);
+
+			final String from = contextUrl;
+			cache = new SchemaContextCache(urls, properties.getSchemaContextRefreshHours() * 60 * 60 * 1000L,
+					cacheFile, readSnapshot(), () -> downloadContext(from));
+		}
+		return cache;
+	}
+
+	/**
+	 * A cache that serves the snapshot shipped with the scraper and never
+	 * downloads the context, so that extraction does not depend on the network;
+	 * Any23 uses the same snapshot.
+	 * 
+	 * @return
+	 */
+	public static SchemaContextCache snapshotOnly() {
+		return new SchemaContextCache(SCHEMA_ORG_CONTEXTS, 0, null, readSnapshot(), () -> {
+			throw new IOException("the snapshot is never refreshed");
+		});
+	}
+
+	/**
+	 * @return A JSON-LD document loader that serves the schema.org context from
+	 *         memory and loads any other document as usual
+	 */
+	public DocumentLoader getDocumentLoader() {
+		refreshIfStale();
+		return loader;
+	}
+
+	/**
+	 * @param url
+	 * @return true if the address is served from memory
+	 */
+	public boolean isKnown(String url) {
+		return urls.contains(url);
+	}
+
+	/**
+	 * @return The context document currently served, or null if no copy is held;
+	 *         must not be changed
+	 */
+	public Object getContext() {
+		Copy current = copy;
+		return current == null ? null : current.document;
+	}
+
+	/**
+	 * The context served, processed as for a document that starts with it, so
+	 * that it is not processed again for every document.
+	 *
+	 * @param base The address of the document, against which relative IRIs are
+	 *             resolved
+	 * @return A processed context of the document's own, or null if no copy is
+	 *         held
+	 */
+	public Context getProcessedContext(String base) {
+		Copy current = copy;
+		if (current == null)
+			return null;
+		Context context = current.processed.clone();
+		context.put("@base", base);
+		return context;
+	}
+
+	/**
+	 * Starts a background download of the context if it is due; returns at
+	 * once.
+	 */
+	void refreshIfStale() {
+		if (refreshMillis <= 0 || System.currentTimeMillis() < nextRefresh)
+			return;
+		if (!refreshing.compareAndSet(false, true))
+			return;
+
+		Thread thread = new Thread(() -> {
+			try {
+				refresh();
+			} finally {
+				refreshing.set(false);
+			}
+		}, "schema-context-refresh");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Downloads the context and, if it is valid, serves and saves it from now on.
+	 *
+	 * @return true if the context was replaced
+	 */
+	boolean refresh() {
+		long now = System.currentTimeMillis();
+		try {
+			String body = download.call();
+			copy = parse(body);
+			nextRefresh = now + refreshMillis;
+			logger.info("schema.org context refreshed");
+			save(body);
+			return true;
+		} catch (Exception e) {
+			nextRefresh = now + Math.min(refreshMillis, RETRY_MILLIS);
+			logger.warn("cannot refresh schema.org context; keeping the current copy: " + e.getMessage());
+			return false;
+		}
+	}
+
+	private void save(String body) {
+		if (cacheFile == null)
+			return;
+		try {
+			Path parent = cacheFile.toAbsolutePath().getParent();
+			if (parent != null)
+				Files.createDirectories(parent);
+			Path temp = Files.createTempFile(parent, "schemaorg", ".tmp");
+			Files.write(temp, body.getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.warn("cannot save schema.org context to " + cacheFile, e);
+		}
+	}
+
+	/**
+	 * Parses a context document, makes it read only, as it is shared between
+	 * threads, and processes the context it holds.
+	 *
+	 * @param body
+	 * @return
+	 * @throws IOException if the body is not JSON or has no valid @context
+	 */
+	@SuppressWarnings("unchecked")
+	private static Copy parse(String body) throws IOException {
+		Object document = JsonUtils.fromString(body);
+		if (!(document instanceof Map) || !(((Map<String, Object>) document).get("@context") instanceof Map))
+			throw new IOException("not a JSON-LD context document");
+		document = readOnly(document);
+		try {
+			Context processed = new Context(new JsonLdOptions()).parse(((Map<String, Object>) document).get("@context"));
+			return new Copy(document, processed);
+		} catch (JsonLdError e) {
+			throw new IOException("not a valid JSON-LD context: " + e.getMessage(), e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object readOnly(Object value) {
+		if (value instanceof Map) {
+			Map<String, Object> copy = new LinkedHashMap<>();
+			for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+				copy.put(entry.getKey(), readOnly(entry.getValue()));
+			}
+			return Collections.unmodifiableMap(copy);
+		}
+		if (value instanceof List) {
+			List<Object> copy = new ArrayList<>();
+			for (Object item : (List<Object>) value) {
+				copy.add(readOnly(item));
+			}
+			return Collections.unmodifiableList(copy);
+		}
+		return value;
+	}
+
+	private static String readSnapshot() {
+		try (InputStream in = SchemaContextCache.class.getClassLoader().getResourceAsStream(SNAPSHOT)) {
+			if (in == null) {
+				logger.error("no schema.org context snapshot at " + SNAPSHOT);
+				return null;
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			logger.error("cannot read the schema.org context snapshot " + SNAPSHOT, e);
+			return null;
+		}
+	}
+
+	private static String downloadContext(String url) throws IOException, InterruptedException {
+		StaticFetchEngine engine = StaticFetchEngine.getInstance();
+		FetchResult result = engine.fetch(engine.newRequest(url).setHeader("Accept", "application/ld+json").build());
+		if (!result.isSuccess())
+			throw new IOException(url + " produced a " + result.getStatusCode());
+		return new String(result.getBody(), StandardCharsets.UTF_8);
+	}
+
+	private static class Copy {
+		private final Object document;
+		// never used directly, only cloned
+		private final Context processed;
+
+		private Copy(Object document, Context processed) {
+			this.document = document;
+			this.processed = processed;
+		}
+	}
+
+	private class CachedDocumentLoader extends DocumentLoader {
+		@Override
+		public RemoteDocument loadDocument(String url) throws JsonLdError {
+			Copy current = copy;
+			if (current != null && urls.contains(url))
+				return new RemoteDocument(url, current.document);
+			return super.loadDocument(url);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package hwu.elixir.scrape.fetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import hwu.elixir.utils.ScraperProperties;
+
+/**
+ * Fetches pages for static (non JavaScript) scraping with a single shared
+ * {@link HttpClient}. The client keeps connections alive and pools them per
+ * host, and uses HTTP/2 where the server offers it, so that consecutive pages
+ * from the same host (e.g., a sitemap) do not each pay for a new TCP and TLS
+ * handshake.
+ *
+ * Timeouts are read from properties <i>httpConnectTimeout</i>, for setting up
+ * a connection, and <i>httpRequestTimeout</i>, for the whole of a request from
+ * sending it to having read all of the body (milliseconds). There is no
+ * timeout on each read of the body on its own.
+ *
+ * Based on singleton pattern.
+ */
+public class StaticFetchEngine {
+
+	// same agent JSoup sends, so sites see no difference between the two paths
+	static final String USER_AGENT = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_12_6) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/53.0.2785.143 Safari/537.36";
+	private static final String ACCEPT = "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8";
+
+	private static StaticFetchEngine engine = null;
+	private static Logger logger = LoggerFactory.getLogger(StaticFetchEngine.class.getName());
+
+	private final HttpClient client;
+	private final Duration requestTimeout;
+
+	StaticFetchEngine(long connectTimeoutMillis, long requestTimeoutMillis) {
+		this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+				.build();
+	}
+
+	/**
+	 * Get the shared engine. If none exists, it creates one.
+	 *
+	 * @return
+	 */
+	public static synchronized StaticFetchEngine getInstance() {
+		if (engine == null) {
+			ScraperProperties properties = ScraperProperties.getInstance();
+			engine = new StaticFetchEngine(properties.getHttpConnectTimeout(), properties.getHttpRequestTimeout());
+			logger.info("shared http client created");
+		}
+		return engine;
+	}
+
+	/**
+	 * @return The underlying client; safe to share between threads
+	 */
+	public HttpClient getClient() {
+		return client;
+	}
+
+	/**
+	 * Builds a GET request for the given URL with the headers this engine always
+	 * sends.
+	 *
+	 * @param url
+	 * @return request builder that further headers can be added to
+	 * @throws IllegalArgumentException if the URL is not valid
+	 */
+	public HttpRequest.Builder newRequest(String url) {
+		return HttpRequest.newBuilder(URI.create(url))
+				.timeout(requestTimeout)
+				.header("User-Agent", USER_AGENT)
+				.header("Accept", ACCEPT)
+				.header("Accept-Encoding", "gzip")
+				.GET();
+	}
+
+	/**
+	 * Fetches a URL. Any status code is returned rather than thrown; it is up to
+	 * the caller to decide what to do with non 2xx responses.
+	 *
+	 * @param url The address of the page to fetch
+	 * @return The response
+	 * @throws IOException              if the page cannot be fetched
+	 * @throws InterruptedException
+	 * @throws IllegalArgumentException if the URL is not valid
+	 */
+	public FetchResult fetch(String url) throws IOException, InterruptedException {
+		return fetch(newRequest(url).build());
+	}
+
+	/**
+	 * Sends a request built with {@link #newRequest(String)}.
+	 *
+	 * @param request
+	 * @return The response
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public FetchResult fetch(HttpRequest request) throws IOException, InterruptedException {
+		return toResult(client.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+	}
+
+	/**
+	 * Converts a response into a {@link FetchResult}, decompressing the body if
+	 * needed.
+	 *
+	 * @param response
+	 * @return
+	 * @throws IOException
+	 */
+	public static FetchResult toResult(HttpResponse<byte[]> response) throws IOException {
+		byte[] body = response.body();
+		String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+		if (encoding.equalsIgnoreCase("gzip") && body.length > 0) {
+			body = gunzip(body);
+		}
+		return new FetchResult(response.uri().toString(), response.statusCode(), response.headers(), body);
+	}
+
+	private static byte[] gunzip(byte[] compressed) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package hwu.elixir.scrape.fetch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import hwu.elixir.utils.ScraperProperties;
+
+/**
+ * Remembers the cache validators (ETag and Last-Modified headers) of every
+ * page scraped statically, together with where its quads were written. On a
+ * recrawl they are sent back as If-None-Match and If-Modified-Since; if the
+ * server answers 304 the previous output can be reused instead of scraping the
+ * page again.
+ *
+ * Validators are only recorded once the quads of a page have been written
+ * successfully: {@link #offer(String, String, String)} holds them when the
+ * page is fetched and {@link #commit(String, String, String)} stores them once
+ * the output exists.
+ *
+ * The store is kept in the tab separated file given by property
+ * <i>revalidationStoreFile</i>; if that is empty revalidation is disabled.
+ * The file is read when the store is created and written by {@link #save()}.
+ *
+ * Based on singleton pattern.
+ */
+public class ValidatorStore {
+
+	private static ValidatorStore store = null;
+	private static Logger logger = LoggerFactory.getLogger(ValidatorStore.class.getName());
+
+	private final Path storeFile;
+	private final Map<String, Validators> entries = new ConcurrentHashMap<>();
+	// validators of pages fetched but not yet written
+	private final Map<String, Validators> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * What is known about a page from the last time it was scraped.
+	 */
+	public static class Validators {
+		private final String etag;
+		private final String lastModified;
+		private final String outputFile;
+		private final String graph;
+
+		Validators(String etag, String lastModified, String outputFile, String graph) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.outputFile = outputFile;
+			this.graph = graph;
+		}
+
+		/**
+		 * @return ETag header, or null if the server did not send one
+		 */
+		public String getEtag() {
+			return etag;
+		}
+
+		/**
+		 * @return Last-Modified header, or null if the server did not send one
+		 */
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * @return The .nq file the quads of the page were written to
+		 */
+		public String getOutputFile() {
+			return outputFile;
+		}
+
+		/**
+		 * @return IRI of the named graph the quads of the page were placed in
+		 */
+		public String getGraph() {
+			return graph;
+		}
+	}
+
+	/**
+	 * @param storeFile File to load from and save to, or null to disable
+	 */
+	ValidatorStore(Path storeFile) {
+		this.storeFile = storeFile;
+		if (storeFile != null)
+			load();
+	}
+
+	/**
+	 * Get the store. If none exists, it creates one from the file named in the
+	 * properties file.
+	 *
+	 * @return
+	 */
+	public static synchronized ValidatorStore getInstance() {
+		if (store == null) {
+			String fileName = ScraperProperties.getInstance().getRevalidationStoreFile();
+			store = new ValidatorStore(fileName.isEmpty() ? null : Paths.get(fileName));
+		}
+		return store;
+	}
+
+	/**
+	 * @return true if validators are being recorded and sent
+	 */
+	public boolean isEnabled() {
+		return storeFile != null;
+	}
+
+	/**
+	 * @param url
+	 * @return What is known about the URL, or null if it has not been scraped
+	 *         before (or revalidation is disabled)
+	 */
+	public Validators get(String url) {
+		return isEnabled() ? entries.get(url) : null;
+	}
+
+	/**
+	 * Holds the validators of a page that has just been fetched until its output
+	 * is written. Does nothing if the server sent neither header.
+	 *
+	 * @param url
+	 * @param etag         ETag header or null
+	 * @param lastModified Last-Modified header or null
+	 */
+	public void offer(String url, String etag, String lastModified) {
+		if (!isEnabled())
+			return;
+		if (etag == null && lastModified == null) {
+			pending.remove(url);
+			return;
+		}
+		pending.put(url, new Validators(clean(etag), clean(lastModified), null, null));
+	}
+
+	/**
+	 * Records that the quads of a page have been written. Only has an effect if
+	 * validators were offered for the URL.
+	 *
+	 * @param url
+	 * @param outputFile The .nq file written
+	 * @param graph      IRI of the named graph holding the quads of the page
+	 */
+	public void commit(String url, String outputFile, String graph) {
+		if (!isEnabled())
+			return;
+		Validators offered = pending.remove(url);
+		if (offered == null || outputFile == null || graph == null) {
+			entries.remove(url);
+			return;
+		}
+		entries.put(url, new Validators(offered.etag, offered.lastModified, outputFile, graph));
+	}
+
+	/**
+	 * Forgets a page, e.g., because its previous output can no longer be found.
+	 *
+	 * @param url
+	 */
+	public void remove(String url) {
+		entries.remove(url);
+		pending.remove(url);
+	}
+
+	/**
+	 * @return Number of pages with stored validators
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Writes the store to its file. The file is replaced in one step so that an
+	 * interrupted save does not lose the previous store.
+	 */
+	public synchronized void save() {
+		if (!isEnabled())
+			return;
+
+		try {
+			Path parent = storeFile.toAbsolutePath().getParent();
+			if (parent != null)
+				Files.createDirectories(parent);
+			Path temp = Files.createTempFile(parent, "validators", ".tmp");
+			try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				for (Map.Entry<String, Validators> entry : entries.entrySet()) {
+					Validators v = entry.getValue();
+					out.write(entry.getKey() + "\t" + orEmpty(v.etag) + "\t" + orEmpty(v.lastModified) + "\t"
+							+ v.outputFile + "\t" + v.graph);
+					out.newLine();
+				}
+			}
+			Files.move(temp, storeFile, StandardCopyOption.REPLACE_EXISTING);
+			logger.info("saved validators for " + entries.size() + " pages to " + storeFile);
+		} catch (IOException e) {
+			logger.error("Cannot save validators to " + storeFile, e);
+		}
+	}
+
+	private void load() {
+		File file = storeFile.toFile();
+		if (!file.exists()) {
+			logger.info("No validator store at " + storeFile + "; every page will be fetched in full");
+			return;
+		}
+
+		try (BufferedReader in = Files.newBufferedReader(storeFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				String[] fields = line.split("\t", -1);
+				if (fields.length != 5) {
+					logger.warn("Ignoring malformed line in validator store: " + line);
+					continue;
+				}
+				entries.put(fields[0],
+						new Validators(emptyToNull(fields[1]), emptyToNull(fields[2]), fields[3], fields[4]));
+			}
+			logger.info("loaded validators for " + entries.size() + " pages from " + storeFile);
+		} catch (IOException e) {
+			logger.error("Cannot read validator store " + storeFile, e);
+		}
+	}
+
+	// header values must stay on one line of the store
+	private static String clean(String value) {
+		if (value == null)
+			return null;
+		value = value.replaceAll("[\\t\\r\\n]", " ").trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	private static String orEmpty(String value) {
+		return value == null ? "" : value;
+	}
+
+	private static String emptyToNull(String value) {
+		return value.isEmpty() ? null : value;
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * 
+ * Fetching of web pages for the scraper: shared HTTP client and related caches.
+ * 
+ */
+package hwu.elixir.scrape.fetch;
@@ -0,0 +1,168 @@
+package hwu.elixir.scrape.scraper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.any23.Any23;
+import org.apache.any23.extractor.ExtractionException;
+import org.apache.any23.source.DocumentSource;
+import org.apache.any23.writer.TripleHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import hwu.elixir.utils.ScraperProperties;
+
+/**
+ * Runs Any23 over pages with only the extractors for the markup the scraper
+ * looks for: JSON-LD, RDFa 1.1 and, if property <i>extractMicrodata</i> is set,
+ * microdata. Of those, only the ones whose markup a page appears to contain are
+ * run; see {@link #detectMarkup(CharSequence)}.
+ *
+ * An Any23 instance is built once for each combination of extractors, and one
+ * for blocks of JSON-LD on their own, and reused for every page. The MIME type of pages is not detected, as they are
+ * always HTML. Extraction is thread safe for documents held in memory, e.g.,
+ * a StringDocumentSource.
+ *
+ * Based on singleton pattern.
+ */
+public class Any23Engine {
+
+	/** JSON-LD in a script element */
+	public static final int JSON_LD = 1;
+	/** RDFa 1.1 attributes */
+	public static final int RDFA = 2;
+	/** Microdata attributes */
+	public static final int MICRODATA = 4;
+	public static final int ALL = JSON_LD | RDFA | MICRODATA;
+
+	// Any23 extractor for each kind of markup, by bit
+	private static final String[] EXTRACTORS = { "html-embedded-jsonld", "html-rdfa11", "html-microdata" };
+
+	// group 1 matches JSON-LD and group 2 microdata attributes; anything else is an RDFa attribute, rel and rev
+	// only if their value holds a prefixed name or an IRI
+	private static final Pattern MARKUP = Pattern.compile(
+			"(application/ld\\+json)|[\\s\"'](?:(itemscope|itemtype|itemprop)|(?:typeof|vocab|about)\\s*=|"
+					+ "(?:rel|rev)\\s*=\\s*(?:\"[^\"]*:|'[^']*:|[^\\s\"'>]*:))",
+			Pattern.CASE_INSENSITIVE);
+
+	private static Any23Engine engine = null;
+	private static Logger logger = LoggerFactory.getLogger(Any23Engine.class.getName());
+
+	private final int enabled;
+	private final Any23[] runners = new Any23[ALL + 1];
+	private final Any23 jsonLdRunner = new Any23("rdf-jsonld");
+
+	/**
+	 * @param microdata true to extract microdata
+	 */
+	Any23Engine(boolean microdata) {
+		enabled = microdata ? ALL : JSON_LD | RDFA;
+		for (int markup = 1; markup <= ALL; markup++) {
+			if ((markup & enabled) != markup)
+				continue;
+
+			runners[markup] = new Any23(extractors(markup).toArray(new String[0]));
+			runners[markup].setMIMETypeDetector(null);
+		}
+	}
+
+	/**
+	 * Get the engine. If none exists, it creates one using property
+	 * <i>extractMicrodata</i>.
+	 *
+	 * @return
+	 */
+	public static synchronized Any23Engine getInstance() {
+		if (engine == null) {
+			engine = new Any23Engine(ScraperProperties.getInstance().extractMicrodata());
+			logger.info("Any23 extractors enabled: " + extractors(engine.enabled));
+		}
+		return engine;
+	}
+
+	/**
+	 * Looks for signs of each kind of markup. Cheap, as it only searches the
+	 * text; may find markup that is not there, e.g., in a comment, but never
+	 * misses any markup describing a thing: RDFa counts only with vocab, typeof
+	 * or about, or rel or rev holding a prefixed name or an IRI. Plain terms,
+	 * e.g., rel="stylesheet", give no triples unless there is a vocab, beyond
+	 * those of the XHTML vocabulary. Nor does property alone count, e.g., the
+	 * meta tags of Open Graph, whose statements are about the page itself.
+	 *
+	 * @param html The page
+	 * @return The kinds of markup found, as a combination of {@link #JSON_LD},
+	 *         {@link #RDFA} and {@link #MICRODATA}
+	 */
+	public static int detectMarkup(CharSequence html) {
+		int found = 0;
+		Matcher matcher = MARKUP.matcher(html);
+		while (found != ALL && matcher.find()) {
+			if (matcher.start(1) != -1)
+				found |= JSON_LD;
+			else if (matcher.start(2) != -1)
+				found |= MICRODATA;
+			else
+				found |= RDFA;
+		}
+		return found;
+	}
+
+	/**
+	 * @return The kinds of markup that are extracted
+	 */
+	public int getEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param markup Kinds of markup
+	 * @return true if any of them is extracted
+	 */
+	public boolean extracts(int markup) {
+		return runners[markup & enabled] != null;
+	}
+
+	/**
+	 * Extracts the given kinds of markup from a document, as far as they are
+	 * enabled. If none of them is (see {@link #extracts(int)}), nothing is run and
+	 * the handler is not used.
+	 *
+	 * @param source  The document
+	 * @param markup  Kinds of markup to extract, e.g., as found by
+	 *                {@link #detectMarkup(CharSequence)}
+	 * @param handler Receives the triples
+	 * @throws IOException
+	 * @throws ExtractionException
+	 */
+	public void extract(DocumentSource source, int markup, TripleHandler handler)
+			throws IOException, ExtractionException {
+		Any23 runner = runners[markup & enabled];
+		if (runner != null)
+			runner.extract(source, handler);
+	}
+
+	/**
+	 * Extracts a block of JSON-LD on its own, e.g., one that is not valid JSON,
+	 * which Any23 repairs in part before reading it.
+	 *
+	 * @param source  The block, as application/ld+json
+	 * @param handler Receives the triples
+	 * @throws IOException
+	 * @throws ExtractionException
+	 */
+	public void extractJsonLd(DocumentSource source, TripleHandler handler) throws IOException, ExtractionException {
+		jsonLdRunner.extract(source, handler);
+	}
+
+	private static List<String> extractors(int markup) {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < EXTRACTORS.length; i++) {
+			if ((markup & (1 << i)) != 0)
+				names.add(EXTRACTORS[i]);
+		}
+		return names;
+	}
+}
@@ -0,0 +1,59 @@
+package hwu.elixir.scrape.scraper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.helpers.RDFHandlerWrapper;
+
+/**
+ * Stage of a statement chain that replaces blank node subjects and objects with
+ * IRIs. Each blank node is given a new IRI the first time it is seen and keeps
+ * it for the rest of the document.
+ */
+public class BlankNodeReplacer extends RDFHandlerWrapper {
+
+	private static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	private final Supplier<IRI> newIRI;
+	private final Map<String, IRI> replacements = new HashMap<>();
+
+	/**
+	 * @param next   Receives the statements without blank nodes
+	 * @param newIRI Gives the IRI for a blank node not seen before
+	 */
+	public BlankNodeReplacer(RDFHandler next, Supplier<IRI> newIRI) {
+		super(next);
+		this.newIRI = newIRI;
+	}
+
+	@Override
+	public void handleStatement(Statement statement) throws RDFHandlerException {
+		Resource subject = statement.getSubject();
+		Value object = statement.getObject();
+		if (!(subject instanceof BNode) && !(object instanceof BNode)) {
+			super.handleStatement(statement);
+			return;
+		}
+
+		if (subject instanceof BNode)
+			subject = replace((BNode) subject);
+		if (object instanceof BNode)
+			object = replace((BNode) object);
+		super.handleStatement(
+				factory.createStatement(subject, statement.getPredicate(), object, statement.getContext()));
+	}
+
+	private IRI replace(BNode node) {
+		return replacements.computeIfAbsent(node.getID(), id -> newIRI.get());
+	}
+}
@@ -0,0 +1,30 @@
+package hwu.elixir.scrape.scraper;
+
+import org.apache.any23.source.StringDocumentSource;
+
+/**
+ * HTML held in memory for Any23, as a {@link StringDocumentSource}, that also
+ * gives back the string it was made from. The scraper looks through the HTML
+ * for markup before running Any23; with this source it does so without reading
+ * the whole page out of the source again.
+ */
+public class HtmlDocumentSource extends StringDocumentSource {
+
+	private final String html;
+
+	/**
+	 * @param html        The HTML
+	 * @param documentIRI The URL the HTML was obtained from
+	 */
+	public HtmlDocumentSource(String html, String documentIRI) {
+		super(html, documentIRI);
+		this.html = html;
+	}
+
+	/**
+	 * @return The HTML, the same string the source was made from
+	 */
+	public String getHtml() {
+		return html;
+	}
+}
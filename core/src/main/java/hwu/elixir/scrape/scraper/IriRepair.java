@@ -0,0 +1,59 @@
+package hwu.elixir.scrape.scraper;
+
+/**
+ * The one rule by which IRIs RDF4J refuses are repaired, wherever they come
+ * from: the characters RDF4J does not allow in an IRI, which Any23 lets through
+ * (e.g., |), are percent-encoded. Nothing is removed, so IRIs that differ only in
+ * such characters stay apart.
+ *
+ * @see StatementTripleHandler
+ * @see TolerantNTriplesParser
+ */
+public final class IriRepair {
+
+	// characters RDF4J refuses in IRIs that Any23 lets through, besides controls and space
+	private static final String UNSAFE_CHARS = "<>\"{}|^`\\";
+
+	private IriRepair() {
+	}
+
+	/**
+	 * @param c
+	 * @return true if RDF4J refuses the character in an IRI
+	 */
+	public static boolean isUnsafe(char c) {
+		return c <= ' ' || UNSAFE_CHARS.indexOf(c) != -1;
+	}
+
+	/**
+	 * Appends a character to an IRI, percent-encoded if it is unsafe.
+	 *
+	 * @param c
+	 * @param iri
+	 */
+	public static void append(char c, StringBuilder iri) {
+		if (isUnsafe(c))
+			iri.append(String.format("%%%02X", (int) c));
+		else
+			iri.append(c);
+	}
+
+	/**
+	 * @param iri An IRI, as a value rather than as written in NTriples
+	 * @return The IRI with unsafe characters percent-encoded, or the same string
+	 *         if there are none
+	 */
+	public static String repair(String iri) {
+		int i = 0;
+		while (i < iri.length() && !isUnsafe(iri.charAt(i)))
+			i++;
+		if (i == iri.length())
+			return iri;
+
+		StringBuilder fixed = new StringBuilder(iri.length() + 8).append(iri, 0, i);
+		for (; i < iri.length(); i++) {
+			append(iri.charAt(i), fixed);
+		}
+		return fixed.toString();
+	}
+}
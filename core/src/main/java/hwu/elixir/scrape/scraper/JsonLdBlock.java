@@ -0,0 +1,37 @@
+package hwu.elixir.scrape.scraper;
+
+/**
+ * A block of JSON-LD found in the HTML of a page, with where it is in that
+ * HTML. The offsets allow all blocks of a page to be replaced in one pass.
+ *
+ * @see ScraperCore#getJsonLdBlocksFromHtml(String)
+ */
+public class JsonLdBlock {
+
+	private final String markup;
+	private final int start;
+	private final int end;
+
+	/**
+	 * @param markup The JSON-LD
+	 * @param start  Index of its first character in the HTML
+	 * @param end    Index after its last character in the HTML
+	 */
+	public JsonLdBlock(String markup, int start, int end) {
+		this.markup = markup;
+		this.start = start;
+		this.end = end;
+	}
+
+	public String getMarkup() {
+		return markup;
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public int getEnd() {
+		return end;
+	}
+}
@@ -0,0 +1,164 @@
+package hwu.elixir.scrape.scraper;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import hwu.elixir.scrape.exceptions.JsonLDInspectionException;
+
+/**
+ * Sets the @context and, where missing, the @id of a block of JSON-LD in a
+ * single streaming pass: the block is read token by token and written out as it
+ * is read, so it is never held as a tree nor parsed twice. Reading it is also
+ * what validates it.
+ *
+ * A block is either a description or an array of them; each description gets
+ * the given @context in place of its own, and the given @id if it has none.
+ * Nested objects are copied unchanged. Strings are written with proper JSON
+ * escapes, so quotes and backslashes within values survive.
+ *
+ * The JSON is read as leniently as by Any23 (comments, trailing commas, single
+ * quotes, ...) and always written as strict JSON.
+ *
+ * The block goes back into a script element, which the first {@code </script}
+ * within it would end, so every {@code </} is written as {@code <\/}, which
+ * JSON reads as the same string.
+ */
+public class JsonLdBlockRewriter {
+
+	// JsonFactory is thread safe once configured, so one is shared
+	private static final JsonFactory JSON = lenientFactory();
+
+	private JsonLdBlockRewriter() {
+	}
+
+	/**
+	 * @return A new factory whose parsers accept the mistakes Any23 tolerates in
+	 *         JSON-LD, less the repairs of its JsonCleaningInputStream
+	 */
+	public static JsonFactory lenientFactory() {
+		return new JsonFactory().enable(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER)
+				.enable(JsonParser.Feature.ALLOW_COMMENTS).enable(JsonParser.Feature.ALLOW_YAML_COMMENTS)
+				.enable(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS)
+				.enable(JsonParser.Feature.ALLOW_NUMERIC_LEADING_ZEROS)
+				.enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES).enable(JsonParser.Feature.ALLOW_TRAILING_COMMA)
+				.enable(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS)
+				.enable(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES);
+	}
+
+	/**
+	 * Rewrites a block of JSON-LD.
+	 *
+	 * @param markup  The block
+	 * @param context The @context every description gets
+	 * @param id      The @id of descriptions that have none
+	 * @return The rewritten block
+	 * @throws JsonLDInspectionException if the block is not JSON, or neither an
+	 *                                   object nor an array
+	 */
+	public static String rewrite(String markup, String context, String id) throws JsonLDInspectionException {
+		StringWriter out = new StringWriter(markup.length() + context.length() + id.length() + 32);
+		try (JsonParser parser = JSON.createParser(markup);
+				JsonGenerator generator = JSON.createGenerator(new ScriptSafeWriter(out))) {
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.START_OBJECT) {
+				rewriteObject(parser, generator, context, id);
+			} else if (token == JsonToken.START_ARRAY) {
+				generator.writeStartArray();
+				while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+					if (token == null)
+						throw new JsonLDInspectionException("Unterminated JSON-LD array");
+					if (token == JsonToken.START_OBJECT)
+						rewriteObject(parser, generator, context, id);
+					else
+						generator.copyCurrentStructure(parser);
+				}
+				generator.writeEndArray();
+			} else {
+				throw new JsonLDInspectionException("Unknown object obtained from JSON parser: " + token);
+			}
+
+			if (parser.nextToken() != null)
+				throw new JsonLDInspectionException("Content after the JSON-LD: " + parser.getCurrentLocation());
+		} catch (IOException e) {
+			throw new JsonLDInspectionException("Invalid JSON-LD: " + e.getMessage());
+		}
+		return out.toString();
+	}
+
+	/**
+	 * Copies one description, whose start has just been read, replacing its
+	 * @context and adding @id if missing.
+	 */
+	private static void rewriteObject(JsonParser parser, JsonGenerator generator, String context, String id)
+			throws IOException, JsonLDInspectionException {
+		boolean hasContext = false;
+		boolean hasId = false;
+
+		generator.writeStartObject();
+		JsonToken token;
+		while ((token = parser.nextToken()) != JsonToken.END_OBJECT) {
+			if (token == null)
+				throw new JsonLDInspectionException("Unterminated JSON-LD object");
+
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			if (name.equals("@context")) {
+				parser.skipChildren();
+				if (!hasContext)
+					generator.writeStringField("@context", context);
+				hasContext = true;
+			} else {
+				hasId |= name.equals("@id");
+				generator.writeFieldName(name);
+				generator.copyCurrentStructure(parser);
+			}
+		}
+
+		if (!hasContext)
+			generator.writeStringField("@context", context);
+		if (!hasId)
+			generator.writeStringField("@id", id);
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a backslash between every {@code <} and {@code /}. Outside strings
+	 * JSON has neither, so only strings are changed.
+	 */
+	private static class ScriptSafeWriter extends FilterWriter {
+		private boolean afterLessThan = false;
+
+		private ScriptSafeWriter(Writer out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			if (c == '/' && afterLessThan)
+				out.write('\\');
+			afterLessThan = c == '<';
+			out.write(c);
+		}
+
+		@Override
+		public void write(char[] buffer, int off, int len) throws IOException {
+			for (int i = off; i < off + len; i++) {
+				write(buffer[i]);
+			}
+		}
+
+		@Override
+		public void write(String text, int off, int len) throws IOException {
+			for (int i = off; i < off + len; i++) {
+				write(text.charAt(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package hwu.elixir.scrape.scraper;
+
+/**
+ * Finds the bodies of {@code <script type="application/ld+json">} elements in
+ * HTML without building a document tree. The HTML is read once, from start to
+ * end, and nothing is copied until a body is asked for.
+ *
+ * Follows the HTML tokenizer closely enough to agree with Jsoup on real pages:
+ * <ul>
+ * <li>tag and attribute names are case insensitive; attribute values may be
+ * double, single or not quoted; the type is compared ignoring case and
+ * surrounding whitespace;</li>
+ * <li>a script element ends at the first {@code </script} followed by
+ * whitespace, {@code /} or {@code >}; its body is cut at any earlier stray
+ * {@code </script} text, e.g., an end tag missing its {@code >}, which would
+ * otherwise leave the rest of the page in the body;</li>
+ * <li>comments, and the contents of other raw text elements (style, textarea,
+ * title, ...) are skipped, so markup inside them is not mistaken for a
+ * script.</li>
+ * </ul>
+ * Character references in attribute values and the escaped states of script
+ * data are not interpreted.
+ *
+ * Usage:
+ *
+ * <pre>
+ * JsonLdScriptLexer lexer = new JsonLdScriptLexer(html);
+ * while (lexer.next()) {
+ * 	CharSequence body = lexer.getBody();
+ * }
+ * </pre>
+ */
+public class JsonLdScriptLexer {
+
+	private static final String JSONLD_TYPE = "application/ld+json";
+
+	// elements whose content is not markup
+	private static final String[] RAW_TEXT = { "script", "style", "textarea", "title", "xmp", "iframe", "noembed",
+			"noframes" };
+
+	private final CharSequence html;
+	private final int length;
+	private int position = 0;
+
+	private int start = -1;
+	private int end = -1;
+
+	/**
+	 * @param html The HTML to search; not copied, so must not change whilst being
+	 *             searched
+	 */
+	public JsonLdScriptLexer(CharSequence html) {
+		this.html = html;
+		this.length = html.length();
+	}
+
+	/**
+	 * Moves to the next JSON-LD script.
+	 *
+	 * @return false once there are no more
+	 */
+	public boolean next() {
+		while (position < length) {
+			int open = indexOf('<', position);
+			if (open == -1)
+				break;
+
+			if (startsWith("<!--", open)) {
+				int close = indexOf("-->", open + 4, false);
+				position = close == -1 ? length : close + 3;
+			} else if (open + 1 < length && (html.charAt(open + 1) == '!' || html.charAt(open + 1) == '?'
+					|| html.charAt(open + 1) == '/')) {
+				// doctype, processing instruction or end tag
+				int close = indexOf('>', open + 1);
+				position = close == -1 ? length : close + 1;
+			} else if (open + 1 < length && isLetter(html.charAt(open + 1))) {
+				if (startTag(open))
+					return true;
+			} else {
+				position = open + 1;
+			}
+		}
+		start = end = -1;
+		return false;
+	}
+
+	/**
+	 * @return Index of the first character of the current body
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return Index after the last character of the current body
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return The body of the current script, as a view on the HTML
+	 */
+	public CharSequence getBody() {
+		return html.subSequence(start, end);
+	}
+
+	/**
+	 * Reads a start tag and, for raw text elements, skips their content.
+	 *
+	 * @param open Index of the {@code <}
+	 * @return true if the tag starts a JSON-LD script
+	 */
+	private boolean startTag(int open) {
+		int i = open + 1;
+		int nameStart = i;
+		while (i < length && !isTagNameEnd(html.charAt(i)))
+			i++;
+		String name = html.subSequence(nameStart, i).toString().toLowerCase();
+
+		// attributes; only the first type counts, as in a DOM
+		String type = null;
+		while (i < length) {
+			char c = html.charAt(i);
+			if (c == '>')
+				break;
+			if (isWhitespace(c) || c == '/') {
+				i++;
+				continue;
+			}
+
+			int attributeStart = i;
+			i++; // a name may start with '='
+			while (i < length && !isWhitespace(html.charAt(i)) && "/=>".indexOf(html.charAt(i)) == -1)
+				i++;
+			String attribute = html.subSequence(attributeStart, i).toString();
+			while (i < length && isWhitespace(html.charAt(i)))
+				i++;
+
+			String value = "";
+			if (i < length && html.charAt(i) == '=') {
+				i++;
+				while (i < length && isWhitespace(html.charAt(i)))
+					i++;
+				if (i < length && (html.charAt(i) == '"' || html.charAt(i) == '\'')) {
+					char quote = html.charAt(i);
+					int close = indexOf(quote, i + 1);
+					close = close == -1 ? length : close;
+					value = html.subSequence(i + 1, close).toString();
+					i = Math.min(length, close + 1);
+				} else {
+					int valueStart = i;
+					while (i < length && !isWhitespace(html.charAt(i)) && html.charAt(i) != '>')
+						i++;
+					value = html.subSequence(valueStart, i).toString();
+				}
+			}
+			if (type == null && attribute.equalsIgnoreCase("type"))
+				type = value;
+		}
+		if (i >= length) {
+			// a tag cut off by the end of the HTML is dropped
+			position = length;
+			return false;
+		}
+		int bodyStart = i + 1;
+
+		if (!isRawText(name)) {
+			position = bodyStart;
+			return false;
+		}
+
+		int bodyEnd = closingTag(name, bodyStart);
+		int close = indexOf('>', bodyEnd);
+		position = close == -1 ? length : close + 1;
+
+		if (name.equals("script") && type != null && type.trim().equalsIgnoreCase(JSONLD_TYPE)) {
+			int stray = indexOf("</script", bodyStart, true);
+			start = bodyStart;
+			end = stray != -1 && stray < bodyEnd ? stray : bodyEnd;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param name Name of a raw text element
+	 * @param from Where its content starts
+	 * @return Index of the {@code <} of its end tag, or the end of the HTML
+	 */
+	private int closingTag(String name, int from) {
+		int i = from;
+		while ((i = indexOf("</" + name, i, true)) != -1) {
+			int after = i + 2 + name.length();
+			if (after >= length || isWhitespace(html.charAt(after)) || html.charAt(after) == '/'
+					|| html.charAt(after) == '>')
+				return i;
+			i = after;
+		}
+		return length;
+	}
+
+	private int indexOf(char c, int from) {
+		for (int i = from; i < length; i++) {
+			if (html.charAt(i) == c)
+				return i;
+		}
+		return -1;
+	}
+
+	private int indexOf(String s, int from, boolean ignoreCase) {
+		char first = s.charAt(0);
+		for (int i = from; i <= length - s.length(); i++) {
+			if (html.charAt(i) == first && regionMatches(s, i, ignoreCase))
+				return i;
+		}
+		return -1;
+	}
+
+	private boolean startsWith(String s, int at) {
+		return at + s.length() <= length && regionMatches(s, at, false);
+	}
+
+	private boolean regionMatches(String s, int at, boolean ignoreCase) {
+		for (int j = 0; j < s.length(); j++) {
+			char c = html.charAt(at + j);
+			if (c != s.charAt(j) && !(ignoreCase && Character.toLowerCase(c) == s.charAt(j)))
+				return false;
+		}
+		return true;
+	}
+
+	private static boolean isRawText(String name) {
+		for (String rawText : RAW_TEXT) {
+			if (rawText.equals(name))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean isTagNameEnd(char c) {
+		return isWhitespace(c) || c == '/' || c == '>';
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+}
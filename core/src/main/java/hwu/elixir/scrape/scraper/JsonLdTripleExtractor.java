@@ -0,0 +1,226 @@
+package hwu.elixir.scrape.scraper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.any23.extractor.ExtractionException;
+import org.apache.any23.source.StringDocumentSource;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.jsonldjava.core.Context;
+import com.github.jsonldjava.core.DocumentLoader;
+import com.github.jsonldjava.core.JsonLdApi;
+import com.github.jsonldjava.core.JsonLdError;
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.core.RDFDataset;
+
+import hwu.elixir.scrape.fetch.SchemaContextCache;
+
+/**
+ * Turns the JSON-LD blocks of a page into triples with jsonld-java, resolving
+ * remote contexts through a given {@link DocumentLoader}. This takes the place
+ * of the Any23 html-embedded-jsonld extractor, which cannot be given a
+ * document loader. Given a {@link SchemaContextCache}, a block whose context is
+ * schema.org starts from the context the cache has already processed.
+ *
+ * Each block is converted on its own, so blank nodes are not shared between
+ * blocks; named graphs are ignored. The JSON is read as leniently as by Any23.
+ * A block that still cannot be read is handed to the Any23 JSON-LD extractor,
+ * which also repairs missing commas; a block that cannot be converted at all is
+ * logged and skipped, and the other blocks are still extracted.
+ */
+public class JsonLdTripleExtractor {
+
+	private static Logger logger = LoggerFactory.getLogger(JsonLdTripleExtractor.class.getName());
+	private static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	private static final ObjectMapper JSON = new ObjectMapper(JsonLdBlockRewriter.lenientFactory());
+
+	private final DocumentLoader loader;
+	private final SchemaContextCache contexts;
+	private long count = 0;
+
+	/**
+	 * @param loader Resolves remote contexts
+	 */
+	public JsonLdTripleExtractor(DocumentLoader loader) {
+		this.loader = loader;
+		this.contexts = null;
+	}
+
+	/**
+	 * @param contexts Serves the schema.org context, processed, and resolves
+	 *                 other remote contexts
+	 */
+	public JsonLdTripleExtractor(SchemaContextCache contexts) {
+		this.loader = contexts.getDocumentLoader();
+		this.contexts = contexts;
+	}
+
+	/**
+	 * @return Number of triples passed on so far
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Extracts the triples of every JSON-LD block in the HTML. The handler is
+	 * neither started nor ended.
+	 *
+	 * @param html    The page
+	 * @param baseIRI The address of the page, against which relative IRIs are
+	 *                resolved
+	 * @param handler Receives the triples
+	 * @throws RDFHandlerException if the handler fails
+	 */
+	public void extract(String html, String baseIRI, RDFHandler handler) throws RDFHandlerException {
+		JsonLdScriptLexer lexer = new JsonLdScriptLexer(html);
+		while (lexer.next()) {
+			extractBlock(lexer.getBody().toString(), baseIRI, handler);
+		}
+	}
+
+	/**
+	 * Extracts the triples of a single JSON-LD block.
+	 *
+	 * @param block   The JSON-LD
+	 * @param baseIRI Against which relative IRIs are resolved
+	 * @param handler Receives the triples
+	 * @throws RDFHandlerException if the handler fails
+	 */
+	public void extractBlock(String block, String baseIRI, RDFHandler handler) throws RDFHandlerException {
+		Object json;
+		try {
+			json = JSON.readValue(block, Object.class);
+		} catch (JsonProcessingException e) {
+			extractBrokenBlock(block, baseIRI, handler);
+			return;
+		} catch (IOException e) {
+			logger.error("Cannot read JSON-LD in " + baseIRI, e);
+			return;
+		}
+		if (json == null)
+			return;
+
+		RDFDataset dataset;
+		try {
+			JsonLdOptions options = new JsonLdOptions(baseIRI);
+			options.setDocumentLoader(loader);
+			Context schemaOrg = getProcessedContext(json, baseIRI);
+			if (schemaOrg == null)
+				dataset = (RDFDataset) JsonLdProcessor.toRDF(json, options);
+			else
+				dataset = toRDF(withoutSchemaOrgContext(json), schemaOrg, options);
+		} catch (JsonLdError e) {
+			logger.error("Cannot convert JSON-LD in " + baseIRI + ": " + e.getMessage());
+			return;
+		}
+
+		// blank node labels are only unique within a block
+		Map<String, BNode> bNodes = new HashMap<>();
+		for (String graph : dataset.graphNames()) {
+			List<RDFDataset.Quad> quads = dataset.getQuads(graph);
+			for (RDFDataset.Quad quad : quads) {
+				try {
+					Resource s = (Resource) toValue(quad.getSubject(), bNodes);
+					IRI p = (IRI) toValue(quad.getPredicate(), bNodes);
+					Value o = toValue(quad.getObject(), bNodes);
+					handler.handleStatement(factory.createStatement(s, p, o));
+					count++;
+				} catch (IllegalArgumentException | ClassCastException e) {
+					logger.debug("Skipping triple in " + baseIRI + ": " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The processed schema.org context if the block starts with it, or
+	 *         null
+	 */
+	private Context getProcessedContext(Object json, String baseIRI) {
+		if (contexts == null || !(json instanceof Map))
+			return null;
+		Object context = ((Map<?, ?>) json).get("@context");
+		if (context instanceof List && !((List<?>) context).isEmpty())
+			context = ((List<?>) context).get(0);
+		if (!(context instanceof String) || !contexts.isKnown((String) context))
+			return null;
+		return contexts.getProcessedContext(baseIRI);
+	}
+
+	/**
+	 * @param json A block starting with the schema.org context
+	 * @return The block without it, keeping any context that follows it
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object withoutSchemaOrgContext(Object json) {
+		Map<String, Object> block = new LinkedHashMap<>((Map<String, Object>) json);
+		Object context = block.remove("@context");
+		if (context instanceof List && ((List<Object>) context).size() > 1)
+			block.put("@context", new ArrayList<>(((List<Object>) context).subList(1, ((List<Object>) context).size())));
+		return block;
+	}
+
+	/**
+	 * As {@link JsonLdProcessor#toRDF(Object, JsonLdOptions)}, but starting from
+	 * a processed context rather than an empty one.
+	 */
+	private static RDFDataset toRDF(Object json, Context context, JsonLdOptions options) throws JsonLdError {
+		Object expanded = new JsonLdApi(options).expand(context, json);
+		if (expanded instanceof Map && ((Map<?, ?>) expanded).containsKey("@graph")
+				&& ((Map<?, ?>) expanded).size() == 1)
+			expanded = ((Map<?, ?>) expanded).get("@graph");
+		else if (expanded == null)
+			expanded = new ArrayList<Object>();
+		if (!(expanded instanceof List)) {
+			List<Object> list = new ArrayList<>();
+			list.add(expanded);
+			expanded = list;
+		}
+		return new JsonLdApi(expanded, options).toRDF();
+	}
+
+	/**
+	 * Passes a block that is not valid JSON to Any23, which repairs some common
+	 * mistakes before parsing it.
+	 */
+	private void extractBrokenBlock(String block, String baseIRI, RDFHandler handler) {
+		try (StatementTripleHandler tripleHandler = new StatementTripleHandler(handler)) {
+			Any23Engine.getInstance().extractJsonLd(new StringDocumentSource(block, baseIRI, "application/ld+json"),
+					tripleHandler);
+			count += tripleHandler.getCount();
+		} catch (ExtractionException | IOException e) {
+			logger.error("Cannot read JSON-LD in " + baseIRI + ": " + e.getMessage());
+		}
+	}
+
+	private static Value toValue(RDFDataset.Node node, Map<String, BNode> bNodes) {
+		if (node.isBlankNode())
+			return bNodes.computeIfAbsent(node.getValue(), label -> factory.createBNode());
+		if (node.isIRI())
+			return StatementTripleHandler.clean(factory.createIRI(node.getValue()));
+		if (node.getLanguage() != null)
+			return factory.createLiteral(node.getValue(), node.getLanguage());
+		if (node.getDatatype() != null)
+			return factory.createLiteral(node.getValue(), factory.createIRI(node.getDatatype()));
+		return factory.createLiteral(node.getValue());
+	}
+}
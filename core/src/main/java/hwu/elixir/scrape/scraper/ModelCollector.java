@@ -0,0 +1,32 @@
+package hwu.elixir.scrape.scraper;
+
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+
+/**
+ * End of a statement chain: collects the statements and namespaces it receives
+ * in a {@link Model}, in the order they arrive.
+ */
+public class ModelCollector extends AbstractRDFHandler {
+
+	private final Model model = new LinkedHashModel();
+
+	@Override
+	public void handleNamespace(String prefix, String uri) {
+		model.setNamespace(prefix, uri);
+	}
+
+	@Override
+	public void handleStatement(Statement statement) {
+		model.add(statement);
+	}
+
+	/**
+	 * @return The statements collected so far
+	 */
+	public Model getModel() {
+		return model;
+	}
+}
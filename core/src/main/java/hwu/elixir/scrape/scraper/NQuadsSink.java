@@ -0,0 +1,238 @@
+package hwu.elixir.scrape.scraper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFWriter;
+import org.eclipse.rdf4j.rio.Rio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import hwu.elixir.utils.ScraperProperties;
+
+/**
+ * Writes the quads of a batch of pages (e.g., those of a sitemap) to one file,
+ * which is kept open for the whole batch rather than opened for every page.
+ * Statements are streamed to a buffer without pretty printing; the buffer is
+ * written out when it is full and, whilst the file is open, once it was last
+ * written out long enough ago, even if nothing more is written. Closing writes
+ * out what is left.
+ *
+ * The file is opened on the first write and replaced, unless appending was
+ * asked for; if written to again after being closed, it is reopened and
+ * appended to. The file is UTF-8.
+ *
+ * Safe to share between threads; each call writes its statements together.
+ */
+public class NQuadsSink implements Closeable {
+
+	private static Logger logger = LoggerFactory.getLogger(NQuadsSink.class.getName());
+
+	/** Start of the comment line before the quads of a page */
+	public static final String PAGE_MARKER = "# page ";
+
+	// writes out the buffers of open sinks in time; a daemon, so it never keeps the JVM running
+	private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread thread = new Thread(task, "nquads-flush");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final File file;
+	private final int bufferSize;
+	private final long flushMillis;
+	private boolean append;
+
+	// open between the first write and close; guarded by this
+	private Writer out = null;
+	private RDFWriter rdfWriter = null;
+	private ScheduledFuture<?> timedFlush = null;
+	private long lastFlush;
+
+	/**
+	 * @param file        Where the quads are written
+	 * @param append      true to add to the end of the file, false to replace it
+	 * @param bufferSize  Characters held before they are written out
+	 * @param flushMillis Time after which held quads are written out; 0 or less
+	 *                    to write them out only when the buffer is full
+	 */
+	public NQuadsSink(File file, boolean append, int bufferSize, long flushMillis) {
+		this.file = file;
+		this.append = append;
+		this.bufferSize = Math.max(1, bufferSize);
+		this.flushMillis = flushMillis;
+	}
+
+	/**
+	 * A sink buffered as set by properties <i>outputBufferKb</i> and
+	 * <i>outputFlushSeconds</i>.
+	 *
+	 * @param outputFileName Where the quads are written
+	 * @param append         true to add to the end of the file, false to replace
+	 *                       it
+	 * @return The sink
+	 */
+	public static NQuadsSink create(String outputFileName, boolean append) {
+		ScraperProperties properties = ScraperProperties.getInstance();
+		return new NQuadsSink(new File(outputFileName), append, properties.getOutputBufferKb() * 1024,
+				properties.getOutputFlushSeconds() * 1000L);
+	}
+
+	/**
+	 * @return The file the quads are written to
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @param url A page
+	 * @return The comment line starting the quads of the page; see
+	 *         {@link #writePage(String, Iterable)}
+	 */
+	public static String pageMarker(String url) {
+		return PAGE_MARKER + "<" + url + ">";
+	}
+
+	/**
+	 * @param statements Quads to write
+	 * @throws IOException
+	 */
+	public synchronized void write(Iterable<Statement> statements) throws IOException {
+		open();
+		writeStatements(statements);
+		flushIfDue();
+	}
+
+	/**
+	 * Writes the quads of a page after a comment naming it (see
+	 * {@link #pageMarker(String)}), so the quads of that page alone can be found
+	 * again in the file even if its graph is shared with other pages.
+	 *
+	 * @param url        The page
+	 * @param statements Its quads
+	 * @throws IOException
+	 */
+	public synchronized void writePage(String url, Iterable<Statement> statements) throws IOException {
+		open();
+		out.write(pageMarker(url));
+		out.write('\n');
+		writeStatements(statements);
+		flushIfDue();
+	}
+
+	/**
+	 * As {@link #writePage(String, Iterable)}, for lines of NQuads, e.g., read
+	 * from an earlier output, written as they are.
+	 *
+	 * @param url   The page
+	 * @param lines Its quads
+	 * @throws IOException
+	 */
+	public synchronized void writePageLines(String url, Iterable<String> lines) throws IOException {
+		open();
+		out.write(pageMarker(url));
+		out.write('\n');
+		for (String line : lines) {
+			out.write(line);
+			out.write('\n');
+		}
+		flushIfDue();
+	}
+
+	private void writeStatements(Iterable<Statement> statements) throws IOException {
+		try {
+			for (Statement statement : statements) {
+				rdfWriter.handleStatement(statement);
+			}
+		} catch (RDFHandlerException e) {
+			throw asIOException(e);
+		}
+	}
+
+	/**
+	 * Writes out the quads held.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void flush() throws IOException {
+		if (out == null)
+			return;
+		out.flush();
+		lastFlush = System.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (out == null)
+			return;
+		try {
+			rdfWriter.endRDF();
+		} catch (RDFHandlerException e) {
+			throw asIOException(e);
+		} finally {
+			if (timedFlush != null)
+				timedFlush.cancel(false);
+			timedFlush = null;
+			out.close();
+			out = null;
+			rdfWriter = null;
+		}
+	}
+
+	private void open() throws IOException {
+		if (out != null)
+			return;
+
+		StandardOpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+		out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode), StandardCharsets.UTF_8), bufferSize);
+		// reopened after close: keep what was written
+		append = true;
+		lastFlush = System.currentTimeMillis();
+
+		rdfWriter = Rio.createWriter(RDFFormat.NQUADS, out);
+		try {
+			rdfWriter.startRDF();
+		} catch (RDFHandlerException e) {
+			out.close();
+			out = null;
+			throw asIOException(e);
+		}
+		if (flushMillis > 0)
+			timedFlush = flusher.scheduleWithFixedDelay(this::timedFlush, flushMillis, flushMillis,
+					TimeUnit.MILLISECONDS);
+		logger.debug("Opened " + file + " for quads");
+	}
+
+	private void flushIfDue() throws IOException {
+		if (flushMillis > 0 && System.currentTimeMillis() - lastFlush >= flushMillis)
+			flush();
+	}
+
+	private synchronized void timedFlush() {
+		try {
+			flushIfDue();
+		} catch (IOException e) {
+			logger.warn("Problem writing out quads to " + file, e);
+		}
+	}
+
+	private static IOException asIOException(RDFHandlerException e) {
+		return e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+	}
+}
@@ -0,0 +1,81 @@
+package hwu.elixir.scrape.scraper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.helpers.RDFHandlerWrapper;
+
+/**
+ * Stage of a statement chain that places every statement in a named graph.
+ *
+ * Statements about the graph itself (e.g., its provenance) and namespaces can
+ * be given up front; they are passed on, as they are, when the document starts.
+ */
+public class NamedGraphAssigner extends RDFHandlerWrapper {
+
+	private static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	private final IRI graph;
+	private final Map<String, String> namespaces = new LinkedHashMap<>();
+	private final List<Statement> header = new ArrayList<>();
+
+	/**
+	 * @param next  Receives the statements in the graph
+	 * @param graph The named graph
+	 */
+	public NamedGraphAssigner(RDFHandler next, IRI graph) {
+		super(next);
+		this.graph = graph;
+	}
+
+	/**
+	 * @return The named graph
+	 */
+	public IRI getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Adds a namespace passed on when the document starts.
+	 *
+	 * @param prefix
+	 * @param name
+	 */
+	public void addNamespace(String prefix, String name) {
+		namespaces.put(prefix, name);
+	}
+
+	/**
+	 * Adds a statement passed on, as it is, when the document starts.
+	 *
+	 * @param statement
+	 */
+	public void addHeader(Statement statement) {
+		header.add(statement);
+	}
+
+	@Override
+	public void startRDF() throws RDFHandlerException {
+		super.startRDF();
+		for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+			super.handleNamespace(namespace.getKey(), namespace.getValue());
+		}
+		for (Statement statement : header) {
+			super.handleStatement(statement);
+		}
+	}
+
+	@Override
+	public void handleStatement(Statement statement) throws RDFHandlerException {
+		super.handleStatement(factory.createStatement(statement.getSubject(), statement.getPredicate(),
+				statement.getObject(), graph));
+	}
+}
@@ -0,0 +1,64 @@
+package hwu.elixir.scrape.scraper;
+
+/**
+ * The HTML of a page, with the blocks of JSON-LD holding schema.org markup if
+ * they were already found in the DOM built when the page was fetched. Passed
+ * from the fetch to the extraction so that the HTML need not be parsed again
+ * to find its JSON-LD.
+ *
+ * Immutable.
+ *
+ * @see ScraperCore#parsePage(org.jsoup.nodes.Document)
+ */
+public class ParsedPage {
+
+	private final String html;
+	private final String[] jsonLd;
+
+	/**
+	 * @param html   The HTML
+	 * @param jsonLd Blocks of JSON-LD found in the same DOM as the HTML, in the
+	 *               order they appear; null if they have not been looked for
+	 */
+	ParsedPage(String html, String[] jsonLd) {
+		this.html = html;
+		this.jsonLd = jsonLd;
+	}
+
+	/**
+	 * @param html HTML whose JSON-LD has not been looked for, e.g., rendered by
+	 *             Selenium or read from an archive
+	 * @return The page
+	 */
+	public static ParsedPage of(String html) {
+		return new ParsedPage(html, null);
+	}
+
+	/**
+	 * @return The HTML
+	 */
+	public String getHtml() {
+		return html;
+	}
+
+	/**
+	 * @return true if the JSON-LD blocks were found when the page was parsed
+	 */
+	public boolean hasJsonLd() {
+		return jsonLd != null;
+	}
+
+	/**
+	 * @return The blocks of JSON-LD, or null if they have not been looked for
+	 */
+	public String[] getJsonLd() {
+		return jsonLd == null ? null : jsonLd.clone();
+	}
+
+	/**
+	 * @return true if there is no HTML, e.g., for a 404
+	 */
+	public boolean isEmpty() {
+		return html == null || html.isEmpty();
+	}
+}
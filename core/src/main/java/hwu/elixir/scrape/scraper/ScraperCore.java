@@ -1,20 +1,25 @@
 package hwu.elixir.scrape.scraper;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.UnknownHostException;
+import java.net.http.HttpRequest;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
 
-import org.apache.any23.Any23;
 import org.apache.any23.extractor.ExtractionException;
 import org.apache.any23.source.DocumentSource;
+import org.apache.any23.source.StringDocumentSource;
 import org.apache.any23.writer.NTriplesWriter;
 import org.apache.any23.writer.JSONLDWriter;
 import org.apache.any23.writer.TripleHandler;
 import org.apache.any23.writer.TripleHandlerException;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.eclipse.rdf4j.model.BNode;
 import org.eclipse.rdf4j.model.IRI;
@@ -29,21 +34,28 @@ import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
-import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
 import org.openqa.selenium.NoSuchSessionException;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import hwu.elixir.scrape.exceptions.FourZeroFourException;
+import hwu.elixir.scrape.fetch.FetchResult;
+import hwu.elixir.scrape.fetch.HtmlArchive;
+import hwu.elixir.scrape.fetch.SchemaContextCache;
+import hwu.elixir.scrape.fetch.StaticFetchEngine;
+import hwu.elixir.scrape.fetch.ValidatorStore;
 import hwu.elixir.scrape.exceptions.NTriplesParsingException;
+import hwu.elixir.scrape.exceptions.NotModifiedException;
 import hwu.elixir.scrape.exceptions.SeleniumException;
 import hwu.elixir.scrape.scraper.examples.FileScraper;
 import hwu.elixir.scrape.scraper.examples.SingleURLScraper;
-import hwu.elixir.utils.ChromeDriverCreator;
+import hwu.elixir.utils.ChromeDriverPool;
+import hwu.elixir.utils.IriCache;
+import hwu.elixir.utils.MultiPatternRewriter;
+import hwu.elixir.utils.PageReadiness;
 import hwu.elixir.utils.ScraperProperties;
 
 /**
@@ -57,33 +69,53 @@ import hwu.elixir.utils.ScraperProperties;
  */
 public abstract class ScraperCore {
 
-	private WebDriver driver;
- 
 	private static Logger logger = LoggerFactory.getLogger(ScraperCore.class.getName());
 
+	// terms Any23 cannot parse and what they are renamed to until extraction is done
+	private static final MultiPatternRewriter ANY23_WORKAROUND = new MultiPatternRewriter(Map.of("license", "licensE",
+			"fileFormat", "FileFormat", "additionalType", "addType"));
+	private static final MultiPatternRewriter ANY23_WORKAROUND_UNDO = ANY23_WORKAROUND.reverse();
+
+	// few distinct predicates and types occur, so fixPredicate and fixObject remember their results
+	private static final IriCache fixedPredicates = new IriCache(ScraperProperties.getInstance().getIriCacheSize(),
+			ScraperCore::normalisePredicate);
+	private static final IriCache fixedObjects = new IriCache(ScraperProperties.getInstance().getIriCacheSize(),
+			ScraperCore::normaliseObject);
+
 	protected ScraperProperties properties;
 
+	// where JSON-LD extraction gets the schema.org context; SchemaContextCache.getInstance() if null
+	private SchemaContextCache schemaContexts = null;
+
 	public ScraperCore() {
 		properties = ScraperProperties.getInstance();
-		driver = ChromeDriverCreator.getInstance();
+	}
+
+	/**
+	 * Use the given schema.org context cache for JSON-LD extraction instead of
+	 * {@link SchemaContextCache#getInstance()}.
+	 * 
+	 * @param schemaContexts
+	 */
+	void setSchemaContexts(SchemaContextCache schemaContexts) {
+		this.schemaContexts = schemaContexts;
 	}
 	
 
 	/**
-	 * Close the chromedriver opened by Selenium. Should always be closed at the end
-	 * of the scrape.
+	 * Close the chromedrivers opened by Selenium, save the validators of the pages
+	 * scraped and close the HTML archive. Should always be closed at the end of
+	 * the scrape.
 	 * 
-	 * @see ChromeDriverCreator
+	 * @see ChromeDriverPool
 	 * @see <a href="https://github.com/HW-SWeL/Scraper/issues/42">BMUSE issue 42</a>
 	 */
 	public void shutdown() {
-		if (driver != null) {
-			logger.info("Closing driver...");
-			driver.quit();
-			logger.info("Driver closed.");
-		} else {
-			logger.info("Driver is null... no need to close.");
-		}
+		logger.info("IRI cache for predicates: " + fixedPredicates);
+		logger.info("IRI cache for objects: " + fixedObjects);
+		ChromeDriverPool.getInstance().shutdown();
+		ValidatorStore.getInstance().save();
+		HtmlArchive.getInstance().close();
 	}
 
 	/**
@@ -97,14 +129,43 @@ public abstract class ScraperCore {
 	 * @throws FourZeroFourException
 	 */
 	protected String wrapHTMLExtractionStatic(String url) throws FourZeroFourException {
-		String html = "";
+		ParsedPage page = wrapPageExtractionStatic(url);
+		return page == null ? null : page.getHtml();
+	}
 
+	/**
+	 * As {@link #wrapHTMLExtractionStatic(String)}, but gives the page as parsed
+	 * when it was fetched.
+	 * 
+	 * @param url
+	 * @return The page, empty for a 404, or null if it could not be fetched
+	 */
+	protected ParsedPage wrapPageExtractionStatic(String url) {
 		try {
-			html = getHtml(url);
+			return getPage(url);
 		} catch (FourZeroFourException e) {
 			logger.error("404 error " + e);
 		}
-		return html;
+		return ParsedPage.of("");
+	}
+
+	/**
+	 * As {@link #wrapPageExtractionStatic(String)}, but revalidates pages that
+	 * were scraped before.
+	 * 
+	 * @param url
+	 * @return The page, empty for a 404, or null if it could not be fetched
+	 * @throws NotModifiedException when the page has not changed since it was last
+	 *                              scraped
+	 * @see #getPageIfModified(String)
+	 */
+	protected ParsedPage wrapPageExtractionStaticIfModified(String url) throws NotModifiedException {
+		try {
+			return getPageIfModified(url);
+		} catch (FourZeroFourException e) {
+			logger.error("404 error " + e);
+		}
+		return ParsedPage.of("");
 	}
 
 	/**
@@ -117,15 +178,30 @@ public abstract class ScraperCore {
 	 * @throws FourZeroFourException
 	 */
 	protected String wrapHTMLExtraction(String url) throws FourZeroFourException {
+		return wrapHTMLExtraction(url, true);
+	}
+
+	/**
+	 * As {@link #wrapHTMLExtraction(String)}, but a page that times out in
+	 * Selenium, or whose JavaScript fails, may be given up on rather than fetched
+	 * statically; e.g., if it was fetched statically already.
+	 * 
+	 * @param url
+	 * @param staticOnTimeout true to fetch the page statically if it times out
+	 * @return The HTML, empty if Selenium failed, or null if the page timed out or
+	 *         its JavaScript failed and staticOnTimeout is false
+	 * @throws FourZeroFourException
+	 */
+	protected String wrapHTMLExtraction(String url, boolean staticOnTimeout) throws FourZeroFourException {
 
 		String html = "";
 
 		try {
-			html = getHtmlViaSelenium(url);
+			html = getHtmlViaSelenium(url, staticOnTimeout);
 		} catch (SeleniumException e) {
 			// try again
 			try {
-				html = getHtmlViaSelenium(url);
+				html = getHtmlViaSelenium(url, staticOnTimeout);
 			} catch (SeleniumException e2) {
 				return "";
 			}
@@ -134,17 +210,159 @@ public abstract class ScraperCore {
 	}
 
 	/**
-	 * Uses JSoup to pull the HTML of a NON dynamic web page. Much faster than
-	 * 	 * Selenium BUT will not execute JS.
+	 * Pulls the HTML of a NON dynamic web page. Much faster than Selenium BUT
+	 * will not execute JS.
+	 * 
+	 * Uses the shared, keep-alive {@link StaticFetchEngine} unless property
+	 * sharedHttpClient is false. If the engine cannot fetch the page at all,
+	 * JSoup is tried instead (see {@link #getHtmlViaJsoup(String)}).
 	 * 
 	 * @param url The address of the site to parse
 	 * @return The HTML as a string
 	 * @throws FourZeroFourException when url is 404
 	 */
 	protected String getHtml(String url) throws FourZeroFourException {
+		ParsedPage page = getPage(url);
+		return page == null ? null : page.getHtml();
+	}
+
+	/**
+	 * As {@link #getHtml(String)}, but gives the page as parsed when it was
+	 * fetched.
+	 * 
+	 * @param url The address of the site to parse
+	 * @return The page, or null if it could not be fetched
+	 * @throws FourZeroFourException when url is 404
+	 */
+	protected ParsedPage getPage(String url) throws FourZeroFourException {
+		if (!ScraperProperties.getInstance().useSharedHttpClient())
+			return getPageViaJsoup(url);
+
+		try {
+			return pageFromResult(url, StaticFetchEngine.getInstance().fetch(url));
+		} catch (IOException e) {
+			logger.warn(url + " could not be fetched with the shared http client (" + e + "); trying JSoup");
+			return getPageViaJsoup(url);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.error(url + " was interrupted whilst being fetched");
+		} catch (IllegalArgumentException e1) {
+			logger.error(url + " produced a " + e1.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * @param url A page
+	 * @return The headers that ask the server whether the page has changed since
+	 *         it was last scraped (see {@link ValidatorStore}); empty if it was not
+	 *         scraped before or revalidation is disabled
+	 */
+	protected Map<String, String> validatorHeaders(String url) {
+		ValidatorStore.Validators previous = ValidatorStore.getInstance().get(url);
+		Map<String, String> headers = new LinkedHashMap<>();
+		if (previous != null && previous.getEtag() != null)
+			headers.put("If-None-Match", previous.getEtag());
+		if (previous != null && previous.getLastModified() != null)
+			headers.put("If-Modified-Since", previous.getLastModified());
+		return headers;
+	}
+
+	/**
+	 * As {@link #getPage(String)}, but if the page was scraped before (see
+	 * {@link ValidatorStore}) the server is asked whether it has changed since.
+	 * The validators of the response are held by the store until the output of
+	 * the page is written.
+	 * 
+	 * Behaves exactly as {@link #getPage(String)} if revalidation is disabled or
+	 * the shared http client is not used.
+	 * 
+	 * @param url The address of the site to parse
+	 * @return The page, or null if it could not be fetched
+	 * @throws FourZeroFourException when url is 404
+	 * @throws NotModifiedException  when the server says the page has not changed
+	 *                               since it was last scraped
+	 */
+	protected ParsedPage getPageIfModified(String url) throws FourZeroFourException, NotModifiedException {
+		ValidatorStore store = ValidatorStore.getInstance();
+		if (!store.isEnabled() || !ScraperProperties.getInstance().useSharedHttpClient())
+			return getPage(url);
+
+		try {
+			StaticFetchEngine engine = StaticFetchEngine.getInstance();
+			HttpRequest.Builder request = engine.newRequest(url);
+			validatorHeaders(url).forEach(request::header);
+
+			FetchResult result = engine.fetch(request.build());
+			if (result.getStatusCode() == 304 && store.get(url) != null) {
+				logger.info(url + " not modified since last scrape");
+				throw new NotModifiedException(url);
+			}
+			store.offer(url, result.getHeader("ETag"), result.getHeader("Last-Modified"));
+			return pageFromResult(url, result);
+		} catch (IOException e) {
+			logger.warn(url + " could not be fetched with the shared http client (" + e + "); trying JSoup");
+			return getPageViaJsoup(url);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.error(url + " was interrupted whilst being fetched");
+		} catch (IllegalArgumentException e1) {
+			logger.error(url + " produced a " + e1.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Turns the response of the {@link StaticFetchEngine} into a page.
+	 * 
+	 * @param url    The address that was fetched
+	 * @param result The response
+	 * @return The page, or null if the server returned an error
+	 * @throws FourZeroFourException when url is 404
+	 * @throws IOException
+	 */
+	private ParsedPage pageFromResult(String url, FetchResult result) throws FourZeroFourException, IOException {
+		if (result.getStatusCode() == 404) {
+			logger.error(url + " produced a 404");
+			throw new FourZeroFourException(url);
+		}
+		if (!result.isSuccess()) {
+			logger.error(url + " produced a " + result.getStatusCode());
+			return null;
+		}
+		return parsePage(result.parse().normalise());
+	}
+
+	/**
+	 * Serialises a page parsed when it was fetched. The JSON-LD blocks are taken
+	 * from the same DOM and given with the HTML, so that
+	 * {@link #getJsonLdBlocks(ParsedPage)} does not need to parse the HTML again.
+	 * 
+	 * @param doc The parsed page
+	 * @return The page, its HTML corrected by {@link #fixAny23WeirdIssues(String)}
+	 */
+	protected ParsedPage parsePage(Document doc) {
+		String html = fixAny23WeirdIssues(doc.html());
+		return new ParsedPage(html, getJsonLdBlocks(doc, this::fixAny23WeirdIssues));
+	}
+
+	/**
+	 * Uses JSoup to pull the HTML of a NON dynamic web page. Much faster than
+	 * 	 * Selenium BUT will not execute JS. Opens a new connection for every call.
+	 * 
+	 * @param url The address of the site to parse
+	 * @return The HTML as a string
+	 * @throws FourZeroFourException when url is 404
+	 */
+	protected String getHtmlViaJsoup(String url) throws FourZeroFourException {
+		ParsedPage page = getPageViaJsoup(url);
+		return page == null ? null : page.getHtml();
+	}
+
+	private ParsedPage getPageViaJsoup(String url) throws FourZeroFourException {
 		try {
 			Response response = Jsoup.connect(url).execute();
-			return fixAny23WeirdIssues(response.parse().normalise().html());
+			return parsePage(response.parse().normalise());
 		} catch (HttpStatusException status) {
 			if (status.getStatusCode() == 404) {
 				logger.error(url + " produced a 404");
@@ -164,7 +382,10 @@ public abstract class ScraperCore {
 
 	/**
 	 * Uses Selenium to pull the HTML of a dynamic web page (ie, executes the
-	 * JavaScript).
+	 * JavaScript). Waits only until the page is ready; see {@link PageReadiness}.
+	 * 
+	 * If the page times out or its JavaScript fails, it is fetched statically
+	 * instead.
 	 * 
 	 * @param url The address of the page to parse
 	 * @return The HTML as a string
@@ -172,18 +393,34 @@ public abstract class ScraperCore {
 	 * @throws SeleniumException
 	 */
 	protected String getHtmlViaSelenium(String url) throws FourZeroFourException, SeleniumException {
-		try {
-			if (driver == null) {
-				driver = ChromeDriverCreator.getInstance();
-			}
+		return getHtmlViaSelenium(url, true);
+	}
+
+	/**
+	 * As {@link #getHtmlViaSelenium(String)}, choosing what happens if the page
+	 * times out or its JavaScript fails.
+	 * 
+	 * @param url             The address of the page to parse
+	 * @param staticOnTimeout true to fetch the page statically if it times out
+	 * @return The HTML as a string, or null if the page timed out or failed and
+	 *         staticOnTimeout is false
+	 * @throws FourZeroFourException when page title is 404
+	 * @throws SeleniumException
+	 */
+	protected String getHtmlViaSelenium(String url, boolean staticOnTimeout) throws FourZeroFourException, SeleniumException {
+		ChromeDriverPool pool = ChromeDriverPool.getInstance();
+		WebDriver driver = pool.borrow();
+		String pageSource = null;
 
+		try {
+			long startedAt = System.currentTimeMillis();
 			try {
 				// Try dynamic page
 				driver.get(url);
 			} catch (NoSuchSessionException e) {
-				System.out.println("TRY AGAIN!");
-				driver = ChromeDriverCreator.killAndReopen();
-				
+				logger.warn("Chrome session lost; restarting driver for " + url);
+				driver = pool.killAndReopen(driver);
+
 				driver.get(url);
 			}
 
@@ -194,24 +431,36 @@ public abstract class ScraperCore {
 				throw new FourZeroFourException(url);
 			}
 
-			WebDriverWait wait = new WebDriverWait(driver, 10);
-			wait.until(ExpectedConditions
-					.presenceOfAllElementsLocatedBy(By.xpath("//script[@type=\"application/ld+json\"]")));
+			PageReadiness.Reason ready = PageReadiness.getInstance().awaitReady(driver, url, startedAt);
+			if (ready == PageReadiness.Reason.BUDGET_EXHAUSTED)
+				logger.warn("URL " + url + " still changing when its wait ran out; scraping it as rendered so far");
+
+			pageSource = driver.getPageSource();
 
 		} catch (TimeoutException to) {
-			logger.error("URL timed out: " + url + ". Trying JSoup.");
-			// Try static page
-			return getHtml(url);
+			logger.error("URL timed out: " + url + (staticOnTimeout ? ". Trying JSoup." : "."));
+
+		} catch (JavascriptException script) {
+			// the page's scripts failed, not chrome; the driver is fine
+			logger.error("JavaScript error on " + url + ": " + script.getMessage()
+					+ (staticOnTimeout ? ". Trying JSoup." : "."));
 
 		} catch (org.openqa.selenium.WebDriverException crashed) {
 			crashed.printStackTrace();
-			if (driver == null) {
-				driver = ChromeDriverCreator.getInstance();
-			}
+			pool.invalidate(driver);
+			driver = null;
 			throw new SeleniumException(url);
+
+		} finally {
+			if (driver != null)
+				pool.release(driver);
 		}
 
-		return fixAny23WeirdIssues(driver.getPageSource());
+		if (pageSource == null) {
+			// Try static page
+			return staticOnTimeout ? getHtml(url) : null;
+		}
+		return fixAny23WeirdIssues(pageSource);
 	}
 
 	/**
@@ -224,8 +473,7 @@ public abstract class ScraperCore {
 	 * @see #fixAny23WeirdIssues(String)
 	 */
 	protected String fixAny23WeirdIssues(String html) {
-		return html.replaceAll("license", "licensE").replaceAll("fileFormat", "FileFormat").replaceAll("additionalType",
-				"addType");
+		return ANY23_WORKAROUND.rewrite(html);
 	}
 
 	/**
@@ -313,8 +561,49 @@ public abstract class ScraperCore {
 		return os.toString();
 	}
 
+	/**
+	 * Takes an Any23 DocumentSource and passes its triples straight to an RDF4J
+	 * handler, without writing them out as NTriples to be parsed again.
+	 * 
+	 * JSON-LD is extracted by {@link JsonLdTripleExtractor} rather than Any23, so
+	 * that the schema.org context comes from {@link SchemaContextCache} instead
+	 * of being fetched for every page.
+	 * 
+	 * @param source  The HTML as an Any23 DocumentSource
+	 * @param handler Receives the triples
+	 * @return false if the triples could not be extracted
+	 * @see StatementTripleHandler
+	 */
+	protected boolean extractTriples(DocumentSource source, RDFHandler handler) {
+
+		try (StatementTripleHandler tripleHandler = new StatementTripleHandler(handler)) {
+
+			String html = readHtml(source);
+			int markup = Any23Engine.detectMarkup(html);
+			JsonLdTripleExtractor jsonLdExtractor = new JsonLdTripleExtractor(
+					schemaContexts == null ? SchemaContextCache.getInstance() : schemaContexts);
+
+			handler.startRDF();
+			Any23Engine.getInstance().extract(source, markup & ~Any23Engine.JSON_LD, tripleHandler);
+			if ((markup & Any23Engine.JSON_LD) != 0)
+				jsonLdExtractor.extract(html, source.getDocumentIRI(), handler);
+			handler.endRDF();
+
+			logger.debug(tripleHandler.getCount() + jsonLdExtractor.getCount() + " triples extracted from "
+					+ source.getDocumentIRI());
+			return true;
+		} catch (ExtractionException e) {
+			logger.error("Cannot extract triples", e);
+		} catch (IOException e1) {
+			logger.error(" IO error whilst extracting triples", e1);
+		}
+
+		return false;
+	}
+
 	/**
 	 * Takes an Any23 DocumentSource and converts into triples in NTriples form.
+	 * Only the markup found in the source is extracted (see {@link Any23Engine}).
 	 * 
 	 * @param source The HTML as an Any23 DocumentSource
 	 * @return Triples in NTriples form as a long String
@@ -322,11 +611,13 @@ public abstract class ScraperCore {
 	 */
 	protected String getTriplesInNTriples(DocumentSource source) {
 
-		Any23 runner = new Any23();
-		try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-				TripleHandler handler = new NTriplesWriter(out);) {
-
-			runner.extract(source, handler);
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			int markup = Any23Engine.detectMarkup(readHtml(source));
+			if (!Any23Engine.getInstance().extracts(markup))
+				return "";
+			try (TripleHandler handler = new NTriplesWriter(out)) {
+				Any23Engine.getInstance().extract(source, markup, handler);
+			}
 
 			return out.toString("UTF-8");
 		} catch (ExtractionException e) {
@@ -351,11 +642,13 @@ public abstract class ScraperCore {
 	 */
 	protected String getTriplesInJSONLD(DocumentSource source) {
 
-		Any23 runner = new Any23();
-		try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-				TripleHandler handler = new JSONLDWriter(out);) {
-
-			runner.extract(source, handler);
+		try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+			int markup = Any23Engine.detectMarkup(readHtml(source));
+			if (!Any23Engine.getInstance().extracts(markup))
+				return "";
+			try (TripleHandler handler = new JSONLDWriter(out)) {
+				Any23Engine.getInstance().extract(source, markup, handler);
+			}
 			return out.toString("UTF-8");
 		} catch (ExtractionException e) {
 			logger.error("Cannot extract triples", e);
@@ -369,22 +662,22 @@ public abstract class ScraperCore {
 	}	
 
 	/**
-	 * Loads nTriples into a InputStream and passes that to RDF4J NTriples parser to
-	 * generate a {@link Model}
+	 * Gets the HTML of a DocumentSource, to look for markup. The HTML of a
+	 * {@link HtmlDocumentSource} is given as it is; other sources are read back.
 	 * 
-	 * @param nTriples String of nTriples
-	 * @return RDF4J Model with the triples loaded inside it
-	 * @throws RDFParseException            Cannot parse the nTriples for some
-	 *                                      reason. Common problem is a URL with an
-	 *                                      inappropriate character, e.g., |
-	 * @throws UnsupportedRDFormatException
+	 * @param source
+	 * @return
 	 * @throws IOException
 	 */
-	private Model createModelFromNTriples2(String nTriples)
-			throws RDFParseException, UnsupportedRDFormatException, IOException {
-		InputStream input = new ByteArrayInputStream(nTriples.getBytes(StandardCharsets.UTF_8));
-
-		return Rio.parse(input, "", RDFFormat.NTRIPLES);
+	private static String readHtml(DocumentSource source) throws IOException {
+		if (source instanceof HtmlDocumentSource)
+			return ((HtmlDocumentSource) source).getHtml();
+
+		// a StringDocumentSource without an encoding uses the platform's
+		Charset charset = source instanceof StringDocumentSource ? Charset.defaultCharset() : StandardCharsets.UTF_8;
+		try (InputStream in = source.openInputStream()) {
+			return IOUtils.toString(in, charset);
+		}
 	}
 
 	/**
@@ -396,8 +689,11 @@ public abstract class ScraperCore {
 	 * @see #fixAny23WeirdIssues(String)
 	 */
 	protected IRI fixPredicate(IRI predicate) {
-		String tempPred = predicate.stringValue().trim().replaceAll("licensE", "license")
-				.replaceAll("FileFormat", "fileFormat").replaceAll("addType", "additionalType");
+		return fixedPredicates.get(predicate.stringValue());
+	}
+
+	private static IRI normalisePredicate(String predicate) {
+		String tempPred = ANY23_WORKAROUND_UNDO.rewrite(predicate.trim());
 		if (tempPred.endsWith("/")) {
 			tempPred = tempPred.substring(0, tempPred.length() - 1);
 		}
@@ -421,69 +717,80 @@ public abstract class ScraperCore {
 	protected Value fixObject(Value object) {
 		if (object instanceof BNode)
 			return object;
-		if (object instanceof IRI) {
-			String tempIRI = object.stringValue();
+		if (object instanceof IRI)
+			return fixedObjects.get(object.stringValue());
+		return SimpleValueFactory.getInstance().createLiteral(ANY23_WORKAROUND_UNDO.rewrite(object.stringValue()));
+	}
 
-			if (tempIRI.startsWith("http://bioschemas")) {
-				tempIRI = tempIRI.replaceFirst("http://bioschemas", "https://bioschemas");
-			}
-			if (tempIRI.startsWith("http://schema")) {
-				tempIRI = tempIRI.replaceFirst("http://schema", "https://schema");
-			}
+	private static IRI normaliseObject(String object) {
+		String tempIRI = object;
 
-			if (tempIRI.contains("schema.org/DataSet")) {
-				tempIRI = tempIRI.replaceFirst("schema.org/DataSet", "schema.org/Dataset");
-			}
+		if (tempIRI.startsWith("http://bioschemas")) {
+			tempIRI = tempIRI.replaceFirst("http://bioschemas", "https://bioschemas");
+		}
+		if (tempIRI.startsWith("http://schema")) {
+			tempIRI = tempIRI.replaceFirst("http://schema", "https://schema");
+		}
 
-			if (tempIRI.contains("schema.org/dataSet")) {
-				tempIRI = tempIRI.replaceFirst("schema.org/dataSet", "schema.org/Dataset");
-			}
+		if (tempIRI.contains("schema.org/DataSet")) {
+			tempIRI = tempIRI.replaceFirst("schema.org/DataSet", "schema.org/Dataset");
+		}
 
-			if (tempIRI.contains("schema.org/dataset")) {
-				tempIRI = tempIRI.replaceFirst("schema.org/dataset", "schema.org/Dataset");
-			}
+		if (tempIRI.contains("schema.org/dataSet")) {
+			tempIRI = tempIRI.replaceFirst("schema.org/dataSet", "schema.org/Dataset");
+		}
 
-			if (tempIRI.lastIndexOf("www.") > 20) {
-				tempIRI = "https://" + tempIRI.substring(tempIRI.lastIndexOf("www.")).trim();
-			}
+		if (tempIRI.contains("schema.org/dataset")) {
+			tempIRI = tempIRI.replaceFirst("schema.org/dataset", "schema.org/Dataset");
+		}
 
-			if (tempIRI.endsWith("/")) {
-				tempIRI = tempIRI.substring(0, tempIRI.length() - 1);
-			}
+		if (tempIRI.lastIndexOf("www.") > 20) {
+			tempIRI = "https://" + tempIRI.substring(tempIRI.lastIndexOf("www.")).trim();
+		}
 
-			return SimpleValueFactory.getInstance().createIRI(tempIRI.replaceAll("licensE", "license")
-					.replaceAll("FileFormat", "fileFormat").replaceAll("addType", "additionalType"));
+		if (tempIRI.endsWith("/")) {
+			tempIRI = tempIRI.substring(0, tempIRI.length() - 1);
 		}
-		return SimpleValueFactory.getInstance().createLiteral(object.stringValue().replaceAll("licensE", "license")
-				.replaceAll("FileFormat", "fileFormat").replaceAll("addType", "additionalType"));
+
+		return SimpleValueFactory.getInstance().createIRI(ANY23_WORKAROUND_UNDO.rewrite(tempIRI));
 	}
 
 	/**
 	 * Generates a RDF4J {@link Model} from a string of NTriples.
 	 * 
+	 * Lines that cannot be parsed are repaired or skipped; see
+	 * {@link #parseNTriples(String, RDFHandler)}.
+	 * 
 	 * @param nTriples The string containing the N-Triples to be turned into a Model
 	 * @return The Model containing the triples from nTriples
 	 * @throws NTriplesParsingException Thrown when the input param cannot be parsed
 	 *                                  as NTriples
 	 */
 	protected Model createModelFromNTriples(String nTriples) throws NTriplesParsingException {
+		ModelCollector collector = new ModelCollector();
+		parseNTriples(nTriples, collector);
+		return collector.getModel();
+	}
 
+	/**
+	 * Parses a string of NTriples straight into a handler, without building a
+	 * {@link Model}. The handler is started and ended.
+	 * 
+	 * Triples are passed on as they are read, in a single pass. A line that cannot
+	 * be parsed, e.g., because of a | (ie character U+7C) inside an IRI, is
+	 * repaired on its own if possible and skipped if not, and logged either way;
+	 * see {@link TolerantNTriplesParser}.
+	 * 
+	 * @param nTriples The string containing the N-Triples
+	 * @param handler  Receives the triples
+	 * @throws NTriplesParsingException Thrown when the input param cannot be parsed
+	 *                                  as NTriples
+	 */
+	protected void parseNTriples(String nTriples, RDFHandler handler) throws NTriplesParsingException {
 		try {
-			return createModelFromNTriples2(nTriples);
+			new TolerantNTriplesParser().parse(nTriples, handler);
 		} catch (RDFParseException e) {
-			logger.error("RDFParseException, the exception is dealt with by removing some characters and trying again: " + e);
-			// RDF4J doesn't like | (ie character U+7C) inside URLs.
-			// this removes | from everywhere in the doc...
-			//TODO monitor any possible issues by character # inside a URL, relevant issue number 43
-			nTriples = nTriples.replaceAll("\\|", "");
-			try {
-				return createModelFromNTriples2(nTriples);
-			} catch (RDFParseException | UnsupportedRDFormatException | IOException e2) {
-				logger.error("Cannot parse triples into a model", e2);
-				throw new NTriplesParsingException("Cannot parse triples into a model");
-			}
-		} catch (UnsupportedRDFormatException | IOException e2) {
-			logger.error("Cannot parse triples into a model. Already tried removing |", e2);
+			logger.error("Cannot parse triples", e);
 			throw new NTriplesParsingException("Cannot parse triples into a model");
 		}
 	}
@@ -500,18 +807,104 @@ public abstract class ScraperCore {
 	 * @throws SeleniumException
 	 */
 	protected String[] getOnlyUnfilteredJSONLDFromHtml(String html) {
-		Document doc = Jsoup.parse(html);
+		return getOnlyUnfilteredJSONLD(ParsedPage.of(html));
+	}
+
+	/**
+	 * As {@link #getOnlyUnfilteredJSONLDFromHtml(String)}, using the blocks found
+	 * when the page was parsed if there are any.
+	 * 
+	 * @param page to find JSON-LD in
+	 * @return An array in which each element is a block of JSON-LD containing
+	 *         schema.org markup.
+	 */
+	protected String[] getOnlyUnfilteredJSONLD(ParsedPage page) {
+		if (page.hasJsonLd())
+			return page.getJsonLd();
+
+		JsonLdBlock[] blocks = getJsonLdBlocksFromHtml(page.getHtml());
+		String[] toReturn = new String[blocks.length];
+		for (int i = 0; i < blocks.length; i++) {
+			toReturn[i] = blocks[i].getMarkup();
+		}
+		return toReturn;
+	}
+
+	/**
+	 * As {@link #getOnlyUnfilteredJSONLDFromHtml(String)}, but also gives where
+	 * each block is in the HTML. Blocks are returned in the order they appear;
+	 * finding all of them reads the HTML once, with a {@link JsonLdScriptLexer}
+	 * rather than by building a DOM.
+	 * 
+	 * @param html to find JSON-LD in
+	 * @return The blocks of JSON-LD containing schema.org markup
+	 */
+	protected JsonLdBlock[] getJsonLdBlocksFromHtml(String html) {
+		return getJsonLdBlocks(ParsedPage.of(html));
+	}
+
+	/**
+	 * As {@link #getJsonLdBlocksFromHtml(String)}, but if the page was parsed
+	 * when it was fetched, the blocks found then are only located in the HTML.
+	 * 
+	 * @param page to find JSON-LD in
+	 * @return The blocks of JSON-LD containing schema.org markup
+	 */
+	protected JsonLdBlock[] getJsonLdBlocks(ParsedPage page) {
+		ArrayList<JsonLdBlock> blocks = new ArrayList<JsonLdBlock>();
+		String html = page.getHtml();
+
+		if (page.hasJsonLd()) {
+			int from = 0;
+			for (String markup : page.getJsonLd()) {
+				int start = html.indexOf(markup, from);
+				if (start == -1) {
+					logger.warn("JSON-LD block not found in the HTML it was extracted from; ignoring it");
+					continue;
+				}
+				from = start + markup.length();
+				blocks.add(new JsonLdBlock(markup, start, from));
+			}
+		} else {
+			JsonLdScriptLexer lexer = new JsonLdScriptLexer(html);
+			while (lexer.next()) {
+				String data = lexer.getBody().toString();
+				if (isSchemaMarkup(data))
+					blocks.add(new JsonLdBlock(data, lexer.getStart(), lexer.getEnd()));
+			}
+		}
+		return blocks.toArray(new JsonLdBlock[0]);
+	}
+
+	/**
+	 * @param data Body of a JSON-LD script
+	 * @return true if it may hold schema.org markup
+	 */
+	private static boolean isSchemaMarkup(String data) {
+		return data.contains("\"@type") || data.contains("\"@context");
+	}
+
+	/**
+	 * Finds the blocks of JSON-LD containing schema.org markup in a parsed page.
+	 * 
+	 * @param doc The parsed page
+	 * @param fix Applied to each block, so that they match the HTML the page is
+	 *            serialised to
+	 * @return An array in which each element is a block of JSON-LD
+	 */
+	private static String[] getJsonLdBlocks(Document doc, UnaryOperator<String> fix) {
 		Elements jsonElements = doc.getElementsByTag("script").select("[type=application/ld+json]");
 
 		ArrayList<String> jsonMarkup = new ArrayList<String>();
 		for (Element jsonElement : jsonElements) {
-			if (jsonElement.data() != "" && jsonElement.data() != null) {
-				if (jsonElement.data().contains("\"@type") || jsonElement.data().contains("\"@context")) {
-					int positionOfClosingTag = jsonElement.data().indexOf("</script");
+			String data = fix.apply(jsonElement.data());
+			if (data != "" && data != null) {
+				if (isSchemaMarkup(data)) {
+					int positionOfClosingTag = data.indexOf("</script");
 					if (positionOfClosingTag == -1) {
-						jsonMarkup.add(jsonElement.data());
+						jsonMarkup.add(data);
 					} else {
-						jsonMarkup.add(jsonElement.data().substring(0, positionOfClosingTag));
+						jsonMarkup.add(data.substring(0, positionOfClosingTag));
 					}
 				}
 			}
@@ -1,36 +1,38 @@
 package hwu.elixir.scrape.scraper;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.openjson.JSONException;
 import org.apache.any23.source.DocumentSource;
-import org.apache.any23.source.StringDocumentSource;
-import org.eclipse.rdf4j.model.BNode;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Model;
-import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
-import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
-import org.eclipse.rdf4j.model.util.ModelBuilder;
+import org.eclipse.rdf4j.model.util.Values;
 import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandler;
 import org.eclipse.rdf4j.rio.RDFWriter;
 import org.eclipse.rdf4j.rio.Rio;
 import org.eclipse.rdf4j.rio.WriterConfig;
 import org.eclipse.rdf4j.rio.helpers.BasicWriterSettings;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,7 +42,13 @@ import hwu.elixir.scrape.exceptions.JsonLDInspectionException;
 import hwu.elixir.scrape.exceptions.MissingHTMLException;
 import hwu.elixir.scrape.exceptions.MissingMarkupException;
 import hwu.elixir.scrape.exceptions.NTriplesParsingException;
+import hwu.elixir.scrape.exceptions.NotModifiedException;
+import hwu.elixir.scrape.fetch.FetchStrategyCache;
+import hwu.elixir.scrape.fetch.HtmlArchive;
+import hwu.elixir.scrape.fetch.ValidatorStore;
 import hwu.elixir.utils.Helpers;
+import hwu.elixir.utils.PolitenessScheduler;
+import hwu.elixir.utils.ScraperProperties;
 
 import javax.annotation.Nullable;
 
@@ -56,6 +64,8 @@ import javax.annotation.Nullable;
  * <li>xhtml/vocab</li>
  * <li>vocab.sindice</li>
  * </ol>
+ * Which triples are removed can be changed with properties <i>filterDeny</i>
+ * and <i>filterAllow</i>; see {@link StatementFilter.Rules}.
  * 
  * Also, replaces blank nodes with a URI based on the context counter and the
  * current time.
@@ -63,8 +73,40 @@ import javax.annotation.Nullable;
 public class ScraperFilteredCore extends ScraperCore {
 
 	private static Logger logger = LoggerFactory.getLogger(ScraperFilteredCore.class.getName());
+	private static StatementFilter.Rules filterRules = null;
 	private int countOfJSONLD = 0; // number of JSON-LD blocks found in HTML
+	private PolitenessScheduler politeness = null; // paces requests to the same host, if set
 	
+	/**
+	 * Makes {@link #scrape(String[], String, String, Long, Boolean)} wait between
+	 * successive pages of a batch (e.g., a sitemap) as required by the scheduler.
+	 * 
+	 * @param politeness The scheduler shared by all workers, or null for no pacing
+	 */
+	public void setPolitenessScheduler(PolitenessScheduler politeness) {
+		this.politeness = politeness;
+	}
+
+	/**
+	 * Waits until the host of the URL may be contacted again, if a scheduler is
+	 * set. For requests made on top of the one the caller was scheduled for,
+	 * e.g., the pages of a sitemap after the sitemap itself.
+	 * 
+	 * @param url URL about to be fetched
+	 * @return false if interrupted whilst waiting
+	 */
+	public boolean pace(String url) {
+		if (politeness == null)
+			return true;
+		try {
+			politeness.pace(url);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
 
 	/**
 	 * Orchestrates the scraping of a given URL and writes the output (as quads) to
@@ -76,12 +118,17 @@ public class ScraperFilteredCore extends ScraperCore {
 	 *
 	 * The file will be located in the location specified in application.properties
 	 *
+	 * When scraping statically with revalidation enabled (see
+	 * {@link ValidatorStore}), a page that has not changed since it was last
+	 * scraped is not scraped again; its previous quads are copied to the file.
+	 *
 	 * @param urls              URL to scrape
 	 * @param outputFileName   name of file the output will be written to
 	 * @param contextCounter   The value of the counter used to record which number
 	 *                         of URL is being scraped
 	 * @param outputFolderName Folder where output is written to
-	 * @param dynamic boolean that determines if JSOUP of Selenium is used to parse the HTML document
+	 * @param dynamic boolean that determines if JSOUP of Selenium is used to parse the HTML document;
+	 *                null for auto, i.e., JSOUP first and Selenium only if no markup is found
 	 * @return FALSE if failed (a positive number from 0 to 5000) else TRUE (-1)
 	 * @throws FourZeroFourException
 	 * @throws JsonLDInspectionException
@@ -93,63 +140,78 @@ public class ScraperFilteredCore extends ScraperCore {
 	public int scrape(String[] urls, String outputFolderName, String outputFileName, Long contextCounter, @Nullable Boolean dynamic)
 			throws FourZeroFourException, JsonLDInspectionException, CannotWriteException, MissingMarkupException {
 
+		File directory = new File(outputFolderName);
+		if (outputFileName == null) {
+			outputFileName = outputFolderName + "/" + contextCounter + ".nq";
+		} else {
+			outputFileName = outputFolderName + "/" + outputFileName + ".nq";
+		}
+
+		// one file for the whole batch, kept open until the end
+		try (NQuadsSink sink = NQuadsSink.create(outputFileName, false)) {
+			return scrape(urls, directory, sink, contextCounter, dynamic);
+		} catch (IOException e) {
+			logger.error("Problem writing file " + outputFileName, e);
+			throw new CannotWriteException(outputFileName);
+		}
+	}
 
+	private int scrape(String[] urls, File directory, NQuadsSink sink, Long contextCounter, Boolean dynamic)
+			throws FourZeroFourException, JsonLDInspectionException, CannotWriteException, MissingMarkupException {
 		int index = 0;
+		String outputFileName = sink.getFile().getPath();
 
 		for (String url : urls) {
 
 			url = fixURL(url);
 
-			String html = "";
+			// the first page is paced by the caller
+			if (index > 0 && !pace(url))
+				return index;
+
+			ParsedPage page = null;
 			// The dynamic boolean determines if the scraper should start using selenium or JSOUP to scrape the information (dynamic and static respectively)
+			// null (auto) tries static first and only uses selenium if that finds no markup
+			boolean auto = dynamic == null;
+			FetchStrategyCache strategies = FetchStrategyCache.getInstance();
 
-			if (dynamic) {
-				logger.info("dynamic scraping setting");
-				html = wrapHTMLExtraction(url);
+			if (auto ? strategies.renderFirst(url) : dynamic) {
+				logger.info(auto ? "auto scraping setting; host needs rendering" : "dynamic scraping setting");
+				page = ParsedPage.of(wrapHTMLExtraction(url));
 			} else {
-				logger.info("static scraping setting");
-				html = wrapHTMLExtractionStatic(url);
+				logger.info(auto ? "auto scraping setting; trying static" : "static scraping setting");
+				try {
+					page = wrapPageExtractionStaticIfModified(url);
+				} catch (NotModifiedException e) {
+					if (!directory.exists())
+						directory.mkdir();
+					if (reusePreviousOutput(url, sink)) {
+						index++;
+						continue;
+					}
+					// previous output is gone; scrape the page in full
+					ValidatorStore.getInstance().remove(url);
+					page = wrapPageExtractionStatic(url);
+				}
+
+				if (auto)
+					page = escalateIfNoMarkup(url, page);
 			}
 
 
-			if (html == null || html.contentEquals("")){
+			if (page == null || page.isEmpty()){
 				//return false;
 				return index;
 			}
 
 			if (logger.isTraceEnabled()) {
 				logger.trace("Read following html ==============================================================");
-				logger.trace(html);
+				logger.trace(page.getHtml());
 			}
 
-			try {
-				html = injectId(html, url);
-				if (logger.isTraceEnabled()) {
-					logger.trace("Same HTML after injecting ID ==============================================================");
-					logger.trace(html);
-				}
-			} catch (MissingHTMLException e) {
-				logger.error(e.toString());
-				//return false;
-				return index;
-			}
+			HtmlArchive.getInstance().append(url, System.currentTimeMillis(), page.getHtml());
 
-			DocumentSource source = new StringDocumentSource(html, url);
-			IRI sourceIRI = SimpleValueFactory.getInstance().createIRI(source.getDocumentIRI());
-
-			String n3 = getTriplesInNTriples(source);
-			if (n3 == null)
-				throw new MissingMarkupException(url);
-
-			Model updatedModel = null;
-			try {
-				updatedModel = processTriples(n3, sourceIRI, contextCounter);
-			} catch (NTriplesParsingException e1) {
-				logger.error("Failed to process triples into model; the NTriples generated from the URL (" + url
-						+ ") could not be parsed into a model.");
-				//return false;
-				return index;
-			}
+			Model updatedModel = extractModel(page, url, contextCounter, new Date());
 			if (updatedModel == null){
 				//return false;
 				return index;
@@ -157,36 +219,19 @@ public class ScraperFilteredCore extends ScraperCore {
 
 			//FIXME here you have to do the writing in the same folder if it is a sitemap, pass parameter boolean flag and loop until all url are parsed and at the end write to folder
 			if(index == 0){
-				File directory = new File(outputFolderName);
 				if (!directory.exists())
 					directory.mkdir();
 
-				if (outputFileName == null) {
-					outputFileName = outputFolderName + "/" + contextCounter + ".nq";
-				} else {
-					outputFileName = outputFolderName + "/" + outputFileName + ".nq";
-				}
-
-				try (PrintWriter out = new PrintWriter(new File(outputFileName))) {
-
-					Rio.write(updatedModel, out, RDFFormat.NQUADS);
-				} catch (Exception e) {
-					logger.error("Problem writing file for " + url, e);
-					throw new CannotWriteException(url);
-				}
+				writeModel(updatedModel, sink, url);
 
 				if (!new File(outputFileName).exists())
 					System.exit(0);
 
 			} else {
-				try (FileWriter out = new FileWriter(new File(outputFileName), true)) {
-					//try (PrintWriter out = new PrintWriter(new File(outputFileName))) {
-					Rio.write(updatedModel, out, RDFFormat.NQUADS, new WriterConfig().set(BasicWriterSettings.PRETTY_PRINT, true));
-				} catch (Exception e) {
-					logger.error("Problem writing file for " + url, e);
-					throw new CannotWriteException(url);
-				}
+				writeModel(updatedModel, sink, url);
 			}
+			// pages of a batch may share a graph; their quads are told apart by the page marker
+			ValidatorStore.getInstance().commit(url, outputFileName, getGraph(updatedModel));
 
 			index++;
 		}
@@ -197,6 +242,236 @@ public class ScraperFilteredCore extends ScraperCore {
 		return -1;
 	}
 
+	/**
+	 * Auto mode: renders the page with Selenium if its static HTML holds no
+	 * markup, unless the host is known to serve its markup statically. Records
+	 * which strategy found markup in the {@link FetchStrategyCache}.
+	 * 
+	 * @param url        The page
+	 * @param staticPage Page fetched statically; null if the fetch failed and
+	 *                   empty for a 404
+	 * @return The page to extract markup from, or null if rendering timed out or
+	 *         its JavaScript failed
+	 * @throws FourZeroFourException
+	 */
+	private ParsedPage escalateIfNoMarkup(String url, ParsedPage staticPage) throws FourZeroFourException {
+		FetchStrategyCache strategies = FetchStrategyCache.getInstance();
+		String staticHtml = staticPage == null ? null : staticPage.getHtml();
+		if (FetchStrategyCache.containsMarkup(staticHtml)) {
+			strategies.record(url, FetchStrategyCache.Strategy.STATIC);
+			return staticPage;
+		}
+		if ((staticHtml != null && staticHtml.isEmpty()) || !strategies.renderIfNoMarkup(url))
+			return staticPage;
+
+		logger.info("No markup in static HTML of " + url + "; rendering");
+		// the page was fetched statically already, so a timeout is a failure rather than a reason to fetch it again
+		String rendered = wrapHTMLExtraction(url, false);
+		if (rendered == null) {
+			logger.error("Rendering " + url + " timed out or its JavaScript failed; not scraped");
+			return null;
+		}
+		if (FetchStrategyCache.containsMarkup(rendered)) {
+			strategies.record(url, FetchStrategyCache.Strategy.DYNAMIC);
+			return ParsedPage.of(rendered);
+		}
+		return staticPage == null ? ParsedPage.of(rendered) : staticPage;
+	}
+
+	/**
+	 * Extracts the (bio)schema markup from the HTML of a page: injects ids into
+	 * the JSON-LD (see {@link #injectId(String, String)}), obtains the triples
+	 * with Any23 and processes them with
+	 * {@link #processTriples(DocumentSource, IRI, Long, Date)}.
+	 * 
+	 * Fetches nothing, so can also be used on HTML obtained earlier, e.g., from an
+	 * {@link HtmlArchive}.
+	 * 
+	 * @param html           HTML of the page
+	 * @param url            The URL the HTML was obtained from
+	 * @param contextCounter The value of the counter used to name the graph
+	 * @param retrievedOn    When the HTML was obtained
+	 * @return The processed triples, or null if the HTML could not be processed
+	 * @throws JsonLDInspectionException when JSON cannot be parsed
+	 * @throws MissingMarkupException    when no triples can be obtained from the
+	 *                                   HTML
+	 */
+	protected Model extractModel(String html, String url, Long contextCounter, Date retrievedOn)
+			throws JsonLDInspectionException, MissingMarkupException {
+		return extractModel(ParsedPage.of(html), url, contextCounter, retrievedOn);
+	}
+
+	/**
+	 * As {@link #extractModel(String, String, Long, Date)}, for a page whose
+	 * JSON-LD may already have been found when it was fetched.
+	 * 
+	 * @param page           The page
+	 * @param url            The URL the page was obtained from
+	 * @param contextCounter The value of the counter used to name the graph
+	 * @param retrievedOn    When the page was obtained
+	 * @return The processed triples, or null if the HTML could not be processed
+	 * @throws JsonLDInspectionException when JSON cannot be parsed
+	 * @throws MissingMarkupException    when no triples can be obtained from the
+	 *                                   HTML
+	 */
+	protected Model extractModel(ParsedPage page, String url, Long contextCounter, Date retrievedOn)
+			throws JsonLDInspectionException, MissingMarkupException {
+		String html;
+		try {
+			html = injectIdInPage(page, url);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Same HTML after injecting ID ==============================================================");
+				logger.trace(html);
+			}
+		} catch (MissingHTMLException e) {
+			logger.error(e.toString());
+			return null;
+		}
+
+		DocumentSource source = new HtmlDocumentSource(html, url);
+		IRI sourceIRI = SimpleValueFactory.getInstance().createIRI(source.getDocumentIRI());
+
+		Model model = processTriples(source, sourceIRI, contextCounter, retrievedOn);
+		if (model == null)
+			throw new MissingMarkupException(url);
+		return model;
+	}
+
+	/**
+	 * Writes a model to a file as quads.
+	 * 
+	 * @param model          The quads to write
+	 * @param outputFileName The file
+	 * @param append         true to add to the end of the file, false to replace
+	 *                       it
+	 * @param url            The page the quads were obtained from
+	 * @throws CannotWriteException
+	 */
+	protected void writeModel(Model model, String outputFileName, boolean append, String url) throws CannotWriteException {
+		if (!append) {
+			try (PrintWriter out = new PrintWriter(new File(outputFileName))) {
+
+				Rio.write(model, out, RDFFormat.NQUADS);
+			} catch (Exception e) {
+				logger.error("Problem writing file for " + url, e);
+				throw new CannotWriteException(url);
+			}
+		} else {
+			try (FileWriter out = new FileWriter(new File(outputFileName), true)) {
+				Rio.write(model, out, RDFFormat.NQUADS, new WriterConfig().set(BasicWriterSettings.PRETTY_PRINT, true));
+			} catch (Exception e) {
+				logger.error("Problem writing file for " + url, e);
+				throw new CannotWriteException(url);
+			}
+		}
+	}
+
+	/**
+	 * Writes a model as quads to the output of a batch of pages. Unlike
+	 * {@link #writeModel(Model, String, boolean, String)}, the file is not opened
+	 * for every page. With revalidation on, the quads follow a marker naming the
+	 * page (see {@link NQuadsSink#writePage(String, Iterable)}), so they can be
+	 * copied if the page has not changed next time; otherwise the output is
+	 * quads only.
+	 * 
+	 * @param model The quads to write
+	 * @param sink  The output
+	 * @param url   The page the quads were obtained from
+	 * @throws CannotWriteException
+	 */
+	protected void writeModel(Model model, NQuadsSink sink, String url) throws CannotWriteException {
+		try {
+			if (ValidatorStore.getInstance().isEnabled())
+				sink.writePage(url, model);
+			else
+				sink.write(model);
+		} catch (IOException e) {
+			logger.error("Problem writing file for " + url, e);
+			throw new CannotWriteException(url);
+		}
+	}
+
+	/**
+	 * Used when a page has not changed since it was last scraped. Copies the quads
+	 * of the page from the previous output to the current output file: those
+	 * after the marker of the page (see {@link NQuadsSink#pageMarker(String)}), or,
+	 * in output written without markers, those in the named graph of the page and
+	 * the provenance of that graph on the default graph. Without a marker, not
+	 * possible if the graph was shared with other pages.
+	 * 
+	 * @param url  The page
+	 * @param sink The current output
+	 * @return true if the previous quads were found and copied
+	 * @throws CannotWriteException
+	 */
+	protected boolean reusePreviousOutput(String url, NQuadsSink sink) throws CannotWriteException {
+		ValidatorStore.Validators previous = ValidatorStore.getInstance().get(url);
+		if (previous == null)
+			return false;
+
+		String marker = NQuadsSink.pageMarker(url);
+		String graph = "<" + previous.getGraph() + ">";
+		List<String> marked = new ArrayList<String>();
+		List<String> inGraph = new ArrayList<String>();
+		boolean markerFound = false;
+		boolean inPage = false;
+		int sources = 0;
+		try (BufferedReader in = new BufferedReader(new FileReader(previous.getOutputFile()))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith(NQuadsSink.PAGE_MARKER)) {
+					inPage = line.equals(marker);
+					markerFound |= inPage;
+					continue;
+				}
+				if (inPage)
+					marked.add(line);
+				if (line.startsWith(graph + " ") || line.endsWith(" " + graph + " ."))
+					inGraph.add(line);
+				if (line.startsWith(graph + " <http://purl.org/pav/retrievedFrom> "))
+					sources++;
+			}
+		} catch (IOException e) {
+			logger.warn("Cannot read previous output " + previous.getOutputFile() + " for " + url);
+			return false;
+		}
+
+		List<String> quads = markerFound ? marked : inGraph;
+		if (quads.isEmpty()) {
+			logger.warn("No quads for " + url + " in previous output " + previous.getOutputFile());
+			return false;
+		}
+		if (!markerFound && sources > 1) {
+			// graph shared with other pages and no marker to tell the quads of this page apart
+			logger.info("Graph of " + url + " holds " + sources + " pages; scraping it again");
+			return false;
+		}
+
+		try {
+			sink.writePageLines(url, quads);
+		} catch (IOException e) {
+			logger.error("Problem writing file for " + url, e);
+			throw new CannotWriteException(url);
+		}
+		ValidatorStore.getInstance().commit(url, sink.getFile().getPath(), previous.getGraph());
+		logger.info("reused " + quads.size() + " quads of unchanged " + url + " from " + previous.getOutputFile());
+		return true;
+	}
+
+	/**
+	 * @param model Output of {@link #processTriples(String, IRI, Long)} for a
+	 *              single page
+	 * @return IRI of the named graph the quads of the page were placed in, or null
+	 *         if it cannot be found
+	 */
+	protected String getGraph(Model model) {
+		IRI retrievedFrom = SimpleValueFactory.getInstance().createIRI("http://purl.org/pav/retrievedFrom");
+		for (Statement st : model.filter(null, retrievedFrom, null)) {
+			return st.getSubject().stringValue();
+		}
+		return null;
+	}
+
 	/**
 	 * Processes a string containing nTriples to obtain a RDF4J {@link Model}.
 	 * 
@@ -229,15 +504,121 @@ public class ScraperFilteredCore extends ScraperCore {
 	 */
 	protected Model processTriples(String nTriples, IRI sourceIRI, Long contextCounter)
 			throws NTriplesParsingException {
-		Model model = createModelFromNTriples(nTriples);
+		return processTriples(nTriples, sourceIRI, contextCounter, new Date());
+	}
+
+	/**
+	 * As {@link #processTriples(String, IRI, Long)}, but for triples obtained at
+	 * the given time rather than now; the time is used for the name of the graph
+	 * and for its retrievedOn date.
+	 * 
+	 * @param nTriples       The triples to be processed
+	 * @param sourceIRI      The URL of the page from which the triples were
+	 *                       obtained
+	 * @param contextCounter The current counter for the context
+	 * @param retrievedOn    When the page was obtained
+	 * @return An RDF4J model containing the processed triples
+	 * @throws NTriplesParsingException Thrown when the nTriples string cannot be
+	 *                                  parsed
+	 */
+	protected Model processTriples(String nTriples, IRI sourceIRI, Long contextCounter, Date retrievedOn)
+			throws NTriplesParsingException {
+		ModelCollector collector = new ModelCollector();
+		parseNTriples(nTriples, newTripleChain(sourceIRI, contextCounter, retrievedOn, collector));
+		return collector.getModel();
+	}
 
-		Iterator<Statement> it = model.iterator();
+	/**
+	 * As {@link #processTriples(String, IRI, Long, Date)}, but takes the triples
+	 * straight from Any23 rather than from NTriples; nothing is serialised in
+	 * between.
+	 * 
+	 * @param source         The HTML as an Any23 DocumentSource
+	 * @param sourceIRI      The URL of the page from which the triples are
+	 *                       obtained
+	 * @param contextCounter The current counter for the context
+	 * @param retrievedOn    When the page was obtained
+	 * @return An RDF4J model containing the processed triples, or null if Any23
+	 *         could not extract the triples
+	 */
+	protected Model processTriples(DocumentSource source, IRI sourceIRI, Long contextCounter, Date retrievedOn) {
+		ModelCollector collector = new ModelCollector();
+		if (!extractTriples(source, newTripleChain(sourceIRI, contextCounter, retrievedOn, collector)))
+			return null;
+		return collector.getModel();
+	}
 
+	/**
+	 * Builds the chain of handlers that filters and rewrites triples as they
+	 * arrive, as described in {@link #processTriples(String, IRI, Long)}:
+	 * {@link StatementFixer}, {@link StatementFilter}, {@link BlankNodeReplacer}
+	 * and {@link NamedGraphAssigner}. The filter comes after the fixer, so its
+	 * rules see the IRIs as written out, e.g., https://schema.org whether the
+	 * page used http or https. When started, the chain first passes the
+	 * provenance of the named graph to the sink, on the default graph.
+	 * 
+	 * @param sourceIRI      The URL of the page from which the triples are
+	 *                       obtained
+	 * @param contextCounter The current counter for the context
+	 * @param retrievedOn    When the page was obtained
+	 * @param sink           Receives the processed triples, e.g., a
+	 *                       {@link ModelCollector}
+	 * @return The first handler of the chain
+	 */
+	protected RDFHandler newTripleChain(IRI sourceIRI, Long contextCounter, Date retrievedOn, RDFHandler sink) {
+		ValueFactory factory = SimpleValueFactory.getInstance();
+		String nSpace = getNamespace(sourceIRI, retrievedOn);
+		String nGraph = nSpace + contextCounter;
+		IRI graph = factory.createIRI(nGraph);
+
+		NamedGraphAssigner assigner = new NamedGraphAssigner(sink, graph);
+		assigner.addNamespace(" ", nSpace);
+		assigner.addNamespace("bsc", nSpace);
+		// add triples that relate to scraped data on the default graph
+		IRI bmuseIRI = factory.createIRI("https://github.com/HW-SWeL/BMUSE/releases/tag/" + properties.getScraperVersion());
+		assigner.addHeader(factory.createStatement(graph, factory.createIRI("http://purl.org/pav/retrievedFrom"), sourceIRI));
+		assigner.addHeader(factory.createStatement(graph, factory.createIRI("http://purl.org/pav/retrievedOn"),
+				Values.literal(Helpers.getFullDateWithTime(retrievedOn))));
+		assigner.addHeader(factory.createStatement(graph, factory.createIRI("http://purl.org/pav/createdWith"), bmuseIRI));
+
+		Supplier<IRI> newIRI;
+		if (properties.hashSkolemization()) {
+			AtomicLong ordinal = new AtomicLong();
+			newIRI = () -> iriGenerator(nGraph, sourceIRI, ordinal.getAndIncrement());
+		} else {
+			newIRI = () -> iriGenerator(nGraph, sourceIRI);
+		}
+		RDFHandler replacer = new BlankNodeReplacer(assigner, newIRI);
+		RDFHandler filter = new StatementFilter(replacer, getFilterRules());
+		return new StatementFixer(filter, this::fixPredicate, this::fixObject);
+	}
+
+	/**
+	 * Get the filter rules. If none exist, they are compiled from properties
+	 * <i>filterDeny</i> and <i>filterAllow</i>.
+	 * 
+	 * @return
+	 */
+	private static synchronized StatementFilter.Rules getFilterRules() {
+		if (filterRules == null) {
+			ScraperProperties properties = ScraperProperties.getInstance();
+			filterRules = StatementFilter.Rules.parse(properties.getFilterDeny(), properties.getFilterAllow());
+			logger.info(filterRules.size() + " filter rules compiled");
+		}
+		return filterRules;
+	}
+
+	/**
+	 * @param sourceIRI   The URL of a page
+	 * @param retrievedOn When the page was obtained
+	 * @return The namespace of the graphs of the page on that day
+	 */
+	private String getNamespace(IRI sourceIRI, Date retrievedOn) {
 		String nSpace = "https://bioschemas.org/crawl/v1/";
 
 		// Relating to issue #1 COVID-19 repo
 		SimpleDateFormat dateF = new SimpleDateFormat("yyyyMMdd");
-		Date date = new Date();
+		Date date = retrievedOn;
 
 		// This block of code does some simple string manipulation to extract domain name and local name
 		// Please note that these 2 methods i.e. getNamespace and getLocalName have been deprecated, so
@@ -260,63 +641,7 @@ public class ScraperFilteredCore extends ScraperCore {
 			domainLocalName = domainLocalName.substring(0, lnEnd);
 		}
 		nSpace = nSpace.concat(domainName + "/" + domainLocalName + "/");
-		nSpace = nSpace.concat(dateF.format(date) + "/");
-
-		String nGraph = nSpace + contextCounter++;
-
-		ModelBuilder builder = new ModelBuilder();
-		builder.setNamespace(" ", nSpace);
-		builder.setNamespace("bsc", nSpace);
-		// add triples that relate to scraped data on the default graph
-		IRI bmuseIRI = SimpleValueFactory.getInstance().createIRI("https://github.com/HW-SWeL/BMUSE/releases/tag/" + properties.getScraperVersion());
-		builder.defaultGraph().add(nGraph, "http://purl.org/pav/retrievedFrom", sourceIRI);
-		builder.defaultGraph().add(nGraph, "http://purl.org/pav/retrievedOn", Helpers.getFullDateWithTime());
-		builder.defaultGraph().add(nGraph, "http://purl.org/pav/createdWith", bmuseIRI);
-
-		HashMap<String, String> replaceBlankNodes = new HashMap<String, String>();
-
-		while (it.hasNext()) {
-			Statement temp = it.next();
-			Resource subject = temp.getSubject();
-			IRI predicate = temp.getPredicate();
-			Value object = temp.getObject();
-
-			if (predicate.stringValue().contains("vocab.sindice"))
-				continue;
-			if (predicate.stringValue().contains("xhtml/vocab"))
-				continue;
-			if (predicate.stringValue().contains("nofollow"))
-				continue;
-			if (predicate.stringValue().contains("ogp.me"))
-				continue;
-
-			predicate = fixPredicate(predicate);
-
-			object = fixObject(object);
-
-			if (subject instanceof BNode) {
-				if (replaceBlankNodes.containsKey(subject.stringValue())) {
-					subject = SimpleValueFactory.getInstance().createIRI(replaceBlankNodes.get(subject.stringValue()));
-				} else {
-					IRI newSubject = iriGenerator(nGraph, sourceIRI);
-					replaceBlankNodes.put(subject.stringValue(), newSubject.stringValue());
-					subject = newSubject;
-				}
-			}
-
-			if (object instanceof BNode) {
-				if (replaceBlankNodes.containsKey(object.stringValue())) {
-					object = SimpleValueFactory.getInstance().createIRI(replaceBlankNodes.get(object.stringValue()));
-				} else {
-					IRI newObject = iriGenerator(nGraph, sourceIRI);
-					replaceBlankNodes.put(object.stringValue(), newObject.stringValue());
-					object = newObject;
-				}
-			}
-			builder.namedGraph(nGraph).add(subject, predicate, object);
-		}
-
-		return builder.build();
+		return nSpace.concat(dateF.format(date) + "/");
 	}
 
 	/**
@@ -328,6 +653,47 @@ public class ScraperFilteredCore extends ScraperCore {
 	 * @return New IRI
 	 */
 	protected IRI iriGenerator(String ngraph, IRI sourceIRI) {
+		Random rand = new Random();
+		int randomInt = Math.abs(rand.nextInt());
+		return SimpleValueFactory.getInstance().createIRI(ngraph + "/" + skolemPrefix(sourceIRI) + randomInt);
+	}
+
+	/**
+	 * Generates an IRI based on the named graph and the source's IRI that is the
+	 * same whenever it is given the same arguments. Ends with a hash of the source
+	 * and of the position of the blank node in the page, as triples are extracted
+	 * in the order of the page. So the IRIs for an unchanged page always end the
+	 * same, and only the graph in front of them changes between scrapes.
+	 * 
+	 * Used when property <i>skolemization</i> is <i>hash</i>.
+	 * 
+	 * @param ngraph
+	 * @param sourceIRI
+	 * @param ordinal   Position of the blank node: 0 for the first one found in
+	 *                  the page, 1 for the next, ...
+	 * @return New IRI
+	 */
+	protected IRI iriGenerator(String ngraph, IRI sourceIRI, long ordinal) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+		byte[] hash = digest.digest((sourceIRI.stringValue() + "#" + ordinal).getBytes(StandardCharsets.UTF_8));
+
+		StringBuilder iri = new StringBuilder(ngraph).append('/').append(skolemPrefix(sourceIRI)).append('b');
+		for (int i = 0; i < 8; i++) {
+			iri.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+		}
+		return SimpleValueFactory.getInstance().createIRI(iri.toString());
+	}
+
+	/**
+	 * @param sourceIRI
+	 * @return The source's IRI without its scheme, ending in / or #
+	 */
+	private String skolemPrefix(IRI sourceIRI) {
 		String source = "";
 		if (sourceIRI.toString().indexOf("https://") != -1) {
 			source = sourceIRI.toString().replaceAll("https://", "");
@@ -338,10 +704,7 @@ public class ScraperFilteredCore extends ScraperCore {
 		if (!(source.endsWith("/") || source.endsWith("#"))) {
 			source += "/";
 		}
-
-		Random rand = new Random();
-		int randomInt = Math.abs(rand.nextInt());
-		return SimpleValueFactory.getInstance().createIRI(ngraph + "/" + source + randomInt);
+		return source;
 	}
 
 	/**
@@ -366,14 +729,30 @@ public class ScraperFilteredCore extends ScraperCore {
 	 * @throws JsonLDInspectionException
 	 */
 	protected String injectId(String html, String url) throws MissingHTMLException, JsonLDInspectionException {
+		return injectIdInPage(ParsedPage.of(html), url);
+	}
+
+	/**
+	 * As {@link #injectId(String, String)}, using the JSON-LD blocks found when
+	 * the page was parsed if there are any.
+	 * 
+	 * @param page the source to be changed
+	 * @param url  the url to be used for @ id
+	 * @return the HTML of the page with @ id added in if missing from a block of
+	 *         JSON-LD. if not, unchanged HTML
+	 * @throws JsonLDInspectionException
+	 */
+	protected String injectIdInPage(ParsedPage page, String url) throws MissingHTMLException, JsonLDInspectionException {
 		countOfJSONLD = 0;
 
 		if (url == null)
 			throw new IllegalArgumentException("url cannot be null");
 
-		if (html == null)
+		if (page == null || page.getHtml() == null)
 			throw new MissingHTMLException(url);
 
+		String html = page.getHtml();
+
 		int posContext = html.indexOf("@context");
 		if (posContext == -1) {
 			if (html.indexOf("vocab=\"http://schema.org") != -1 || html.indexOf("vocab=\"https://schema.org") != -1) {
@@ -381,7 +760,7 @@ public class ScraperFilteredCore extends ScraperCore {
 				return html;
 			}
 		}
-		return fixAllJsonLdBlocks(html, url);
+		return fixAllJsonLdBlocks(page, url);
 	}
 
 	/**
@@ -395,30 +774,52 @@ public class ScraperFilteredCore extends ScraperCore {
 	 * @see {@link #fixASingleJsonLdBlock(String, String)}
 	 */
 	protected String fixAllJsonLdBlocks(String html, String url) throws JsonLDInspectionException {
-		String[] allMarkup = null;
+		return fixAllJsonLdBlocks(ParsedPage.of(html), url);
+	}
+
+	/**
+	 * As {@link #fixAllJsonLdBlocks(String, String)}, using the JSON-LD blocks
+	 * found when the page was parsed if there are any.
+	 * 
+	 * @param page The page
+	 * @param url  The URL from which the page was obtained
+	 * @return HTML in which JSON-LD has been corrected
+	 * @throws JsonLDInspectionException when JSON cannot be parsed
+	 */
+	protected String fixAllJsonLdBlocks(ParsedPage page, String url) throws JsonLDInspectionException {
+		String html = page.getHtml();
+		JsonLdBlock[] allBlocks = null;
 		if (html.startsWith("{")) {
 			logger.info("Just JSON no HTML from: " + url);
-			allMarkup = new String[1];
-			allMarkup[0] = html;
+			allBlocks = new JsonLdBlock[1];
+			allBlocks[0] = new JsonLdBlock(html, 0, html.length());
 
 		} else {
-			allMarkup = getOnlyUnfilteredJSONLDFromHtml(html);
+			allBlocks = getJsonLdBlocks(page);
 		}
 
-		logger.debug("Number of JSONLD sections: " + allMarkup.length);
+		logger.debug("Number of JSONLD sections: " + allBlocks.length);
 
-		for (String markup : allMarkup) {
-			String newMarkup = fixASingleJsonLdBlock(markup, url);
+		// blocks are in order, so the new HTML is built in one pass
+		StringBuilder newHtml = null;
+		int copied = 0;
+		for (JsonLdBlock block : allBlocks) {
+			String newMarkup = fixASingleJsonLdBlock(block.getMarkup(), url);
 
-			if (newMarkup.equalsIgnoreCase(markup)) {
+			if (newMarkup.equalsIgnoreCase(block.getMarkup())) {
 				continue;
 			}
 
-			html = swapJsonLdMarkup(html, markup, newMarkup);
+			if (newHtml == null)
+				newHtml = new StringBuilder(html.length() + 64 * allBlocks.length);
+			newHtml.append(html, copied, block.getStart()).append(newMarkup);
+			copied = block.getEnd();
 			countOfJSONLD++;
 		}
 
-		return html;
+		if (newHtml == null)
+			return html;
+		return newHtml.append(html, copied, html.length()).toString();
 	}
 
 	/**
@@ -431,6 +832,8 @@ public class ScraperFilteredCore extends ScraperCore {
 	 * <li>adds @id based on url</li>
 	 * </ol>
 	 * 
+	 * The block is read and written in a single pass by
+	 * {@link JsonLdBlockRewriter}, which also validates it.
 	 * 
 	 * @param markup A single block of JSON-LD (bio)schema markup as a String
 	 * @param url    The URL of the site the markup was scraped from
@@ -438,24 +841,11 @@ public class ScraperFilteredCore extends ScraperCore {
 	 * @throws JsonLDInspectionException when JSON cannot be parsed
 	 */
 	protected String fixASingleJsonLdBlock(String markup, String url) throws JsonLDInspectionException {
-		JSONParser parser = new JSONParser();
-		JSONArray jsonArray = null;
-		JSONObject jsonObj = null;
+		String id = countOfJSONLD > 0 ? url + "-" + countOfJSONLD : url;
 		try {
-			Object obj = parser.parse(markup);
-
-			if (obj instanceof JSONArray) {
-				jsonArray = (JSONArray) obj;
-				return fixAJsonLdArray(jsonArray, url);
-			} else if (obj instanceof JSONObject) {
-				jsonObj = (JSONObject) obj;
-				return fixASingleJsonLdObject(jsonObj, url);
-			}
-
-			throw new JsonLDInspectionException("Unkown object obtained from JSON parser :" + url);
-
-		} catch (ParseException e) {
-			throw new JsonLDInspectionException("JSON ParseException. Failed to parse JSON from :" + url + " Parser Error: " + e);
+			return JsonLdBlockRewriter.rewrite(markup, properties.getSchemaContext(), id);
+		} catch (JsonLDInspectionException e) {
+			throw new JsonLDInspectionException("Failed to parse JSON from :" + url + " " + e.getMessage());
 		}
 	}
 
@@ -463,6 +853,9 @@ public class ScraperFilteredCore extends ScraperCore {
 	 * Corrects an {@link JSONArray} of (bio)schemas markup; each element is a
 	 * {@link JSONObject}. Uses {@link #fixASingleJSONLdObject(JSONObject, String)}
 	 * 
+	 * For markup already parsed with json-simple; blocks found in HTML are
+	 * corrected by {@link #fixASingleJsonLdBlock(String, String)}.
+	 * 
 	 * @param array An {@link JSONArray} of (bio)schemas markup
 	 * @param url   The URL from which the markup was scraped
 	 * @return The corrected markup stringified; will still be in array
@@ -507,10 +900,6 @@ public class ScraperFilteredCore extends ScraperCore {
 	 */
 	@SuppressWarnings("unchecked")
 	protected JSONObject fixASingleJSONLdObject(JSONObject jsonObj, String url) {
-		boolean isValid = isJSONValid(jsonObj.toString());
-		if (!isValid){
-			logger.error("invalid JSON-LD syntax");
-		}
 		if (jsonObj.containsKey("@context")) {
 			String contextValue = jsonObj.get("@context").toString();
 			
@@ -555,18 +944,4 @@ public class ScraperFilteredCore extends ScraperCore {
 
 		return newHtml;
 	}
-
-	// fixme some problem with checking if JSON syntax is valid
-	private static boolean isJSONValid(String jsonInString){
-
-		try {
-			final ObjectMapper mapper = new ObjectMapper();
-			mapper.readTree(jsonInString);
-			return true;
-		} catch (IOException e) {
-			logger.error("INVALID JSON-LD SYNTAX");
-			return false;
-		}
-
-	}
 }
@@ -1,17 +1,10 @@
 package hwu.elixir.scrape.scraper;
 
 import java.io.IOException;
-import java.util.Iterator;
 
 import org.apache.any23.source.DocumentSource;
-import org.apache.any23.source.StringDocumentSource;
 import org.apache.commons.io.output.ByteArrayOutputStream;
-import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Model;
-import org.eclipse.rdf4j.model.Resource;
-import org.eclipse.rdf4j.model.Statement;
-import org.eclipse.rdf4j.model.Value;
-import org.eclipse.rdf4j.model.util.ModelBuilder;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.eclipse.rdf4j.rio.Rio;
 import org.slf4j.Logger;
@@ -175,7 +168,7 @@ public class ScraperUnFilteredCore extends ScraperCore {
 
 		// not injecting id as leaving blank nodes
 
-		DocumentSource source = new StringDocumentSource(html, url);
+		DocumentSource source = new HtmlDocumentSource(html, url);
 		String n3 = getTriplesInNTriples(source);
 		if (n3 == null)
 			throw new MissingMarkupException(url);
@@ -210,23 +203,8 @@ public class ScraperUnFilteredCore extends ScraperCore {
 	 * @see Model
 	 */
 	protected Model processTriplesLeaveBlankNodes(String nTriples) throws NTriplesParsingException {
-
-		Model model = createModelFromNTriples(nTriples);
-		Iterator<Statement> it = model.iterator();
-		ModelBuilder builder = new ModelBuilder();
-
-		while (it.hasNext()) {
-			Statement temp = it.next();
-			Resource subject = temp.getSubject();
-			IRI predicate = temp.getPredicate();
-			Value object = temp.getObject();
-
-			predicate = fixPredicate(predicate);
-
-			object = fixObject(object);
-
-			builder.add(subject, predicate, object);
-		}
-		return builder.build();
+		ModelCollector collector = new ModelCollector();
+		parseNTriples(nTriples, new StatementFixer(collector, this::fixPredicate, this::fixObject));
+		return collector.getModel();
 	}
 }
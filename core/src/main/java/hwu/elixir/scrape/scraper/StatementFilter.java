@@ -0,0 +1,175 @@
+package hwu.elixir.scrape.scraper;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.helpers.RDFHandlerWrapper;
+
+import hwu.elixir.utils.PrefixTrie;
+
+/**
+ * Stage of a statement chain that drops the statements we do not store, as
+ * decided by {@link Rules}, once {@link StatementFixer} has normalised their
+ * IRIs and before anything else is done with them. Every other statement is
+ * passed on unchanged.
+ *
+ * By default ({@link Rules#DEFAULT}) drops statements whose predicate is not
+ * (bio)schema markup:
+ * <ol>
+ * <li>vocab.sindice</li>
+ * <li>xhtml/vocab</li>
+ * <li>nofollow</li>
+ * <li>{@link <a href="https://ogp.me/">...</a>}</li>
+ * </ol>
+ */
+public class StatementFilter extends RDFHandlerWrapper {
+
+	/**
+	 * Which statements are kept. A rule is written <i>kind:pattern</i>, where kind
+	 * is one of
+	 * <ul>
+	 * <li><i>predicate</i>: matched against the predicate</li>
+	 * <li><i>type</i>: matched against the object of rdf:type statements</li>
+	 * <li><i>namespace</i>: matched against both</li>
+	 * </ul>
+	 * and the pattern is an IRI the matched IRI must start with or, if the pattern
+	 * starts with *, text it must contain, e.g., <i>namespace:http://ogp.me/</i> or
+	 * <i>predicate:*nofollow</i>.
+	 *
+	 * A statement is dropped if its predicate or type matches a deny rule. If
+	 * there are allow rules for predicates (or types), it is also dropped unless
+	 * its predicate (or type) matches one of them; namespace rules count for
+	 * both, so allowing a namespace of types only also needs rdf:type allowing.
+	 *
+	 * Rules are compiled into {@link PrefixTrie}s once; instances are immutable
+	 * and can be shared between threads.
+	 */
+	public static class Rules {
+
+		/** The predicates that are not (bio)schema markup */
+		public static final String DEFAULT_DENY = "predicate:*vocab.sindice, predicate:*xhtml/vocab, predicate:*nofollow, predicate:*ogp.me";
+		public static final Rules DEFAULT = parse(DEFAULT_DENY, "");
+
+		private final PrefixTrie denyPredicates = new PrefixTrie();
+		private final PrefixTrie denyTypes = new PrefixTrie();
+		private final PrefixTrie allowPredicates = new PrefixTrie();
+		private final PrefixTrie allowTypes = new PrefixTrie();
+
+		private Rules() {
+		}
+
+		/**
+		 * @param deny  Comma separated rules for statements to drop; may be empty
+		 * @param allow Comma separated rules for statements to keep; may be empty
+		 * @return The compiled rules
+		 * @throws IllegalArgumentException if a rule is not <i>kind:pattern</i>
+		 */
+		public static Rules parse(String deny, String allow) {
+			Rules rules = new Rules();
+			rules.add(deny, rules.denyPredicates, rules.denyTypes);
+			rules.add(allow, rules.allowPredicates, rules.allowTypes);
+			rules.denyPredicates.build();
+			rules.denyTypes.build();
+			rules.allowPredicates.build();
+			rules.allowTypes.build();
+			return rules;
+		}
+
+		private void add(String list, PrefixTrie predicates, PrefixTrie types) {
+			for (String rule : list.split(",")) {
+				rule = rule.trim();
+				if (rule.isEmpty())
+					continue;
+
+				int colon = rule.indexOf(':');
+				String kind = colon == -1 ? "" : rule.substring(0, colon).trim();
+				String pattern = rule.substring(colon + 1).trim();
+				boolean anywhere = pattern.startsWith("*");
+				if (anywhere)
+					pattern = pattern.substring(1);
+				if (pattern.isEmpty())
+					throw new IllegalArgumentException("Filter rule without a pattern: " + rule);
+
+				switch (kind) {
+				case "predicate":
+					predicates.add(pattern, anywhere);
+					break;
+				case "type":
+					types.add(pattern, anywhere);
+					break;
+				case "namespace":
+					predicates.add(pattern, anywhere);
+					types.add(pattern, anywhere);
+					break;
+				default:
+					throw new IllegalArgumentException(
+							"Filter rule must start with predicate:, type: or namespace: " + rule);
+				}
+			}
+		}
+
+		/**
+		 * @param statement
+		 * @return true if the statement is kept
+		 */
+		public boolean accept(Statement statement) {
+			IRI predicate = statement.getPredicate();
+			String p = predicate.stringValue();
+			if (denyPredicates.matches(p))
+				return false;
+			if (!allowPredicates.isEmpty() && !allowPredicates.matches(p))
+				return false;
+
+			if ((denyTypes.isEmpty() && allowTypes.isEmpty()) || !(statement.getObject() instanceof IRI)
+					|| !predicate.equals(RDF.TYPE))
+				return true;
+			String type = statement.getObject().stringValue();
+			if (denyTypes.matches(type))
+				return false;
+			return allowTypes.isEmpty() || allowTypes.matches(type);
+		}
+
+		/**
+		 * @return Number of rules, less duplicates
+		 */
+		public int size() {
+			return denyPredicates.size() + denyTypes.size() + allowPredicates.size() + allowTypes.size();
+		}
+	}
+
+	private final Rules rules;
+
+	/**
+	 * Filters with {@link Rules#DEFAULT}.
+	 *
+	 * @param next Receives the statements kept
+	 */
+	public StatementFilter(RDFHandler next) {
+		this(next, Rules.DEFAULT);
+	}
+
+	/**
+	 * @param next  Receives the statements kept
+	 * @param rules Which statements are kept
+	 */
+	public StatementFilter(RDFHandler next, Rules rules) {
+		super(next);
+		this.rules = rules;
+	}
+
+	/**
+	 * @param statement
+	 * @return true if the statement is passed on
+	 */
+	public boolean accept(Statement statement) {
+		return rules.accept(statement);
+	}
+
+	@Override
+	public void handleStatement(Statement statement) throws RDFHandlerException {
+		if (accept(statement))
+			super.handleStatement(statement);
+	}
+}
@@ -0,0 +1,44 @@
+package hwu.elixir.scrape.scraper;
+
+import java.util.function.UnaryOperator;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.helpers.RDFHandlerWrapper;
+
+/**
+ * Stage of a statement chain that corrects the predicate and object of every
+ * statement, e.g., with {@link ScraperCore#fixPredicate(IRI)} and
+ * {@link ScraperCore#fixObject(Value)}. Subjects and contexts are passed on
+ * unchanged.
+ */
+public class StatementFixer extends RDFHandlerWrapper {
+
+	private static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	private final UnaryOperator<IRI> fixPredicate;
+	private final UnaryOperator<Value> fixObject;
+
+	/**
+	 * @param next         Receives the corrected statements
+	 * @param fixPredicate Corrects predicates
+	 * @param fixObject    Corrects objects
+	 */
+	public StatementFixer(RDFHandler next, UnaryOperator<IRI> fixPredicate, UnaryOperator<Value> fixObject) {
+		super(next);
+		this.fixPredicate = fixPredicate;
+		this.fixObject = fixObject;
+	}
+
+	@Override
+	public void handleStatement(Statement statement) throws RDFHandlerException {
+		super.handleStatement(factory.createStatement(statement.getSubject(),
+				fixPredicate.apply(statement.getPredicate()), fixObject.apply(statement.getObject()),
+				statement.getContext()));
+	}
+}
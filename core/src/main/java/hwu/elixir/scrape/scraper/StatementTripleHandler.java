@@ -0,0 +1,100 @@
+package hwu.elixir.scrape.scraper;
+
+import org.apache.any23.extractor.ExtractionContext;
+import org.apache.any23.writer.TripleHandler;
+import org.apache.any23.writer.TripleHandlerException;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+
+/**
+ * Passes the triples extracted by Any23 straight to an RDF4J
+ * {@link RDFHandler}, rather than writing them out as NTriples to be parsed
+ * again.
+ *
+ * Any23 graphs are ignored, as they were when the triples went through
+ * NTriples. The RDF4J NTriples parser rejected IRIs containing |, among other
+ * characters; IRIs are repaired here as they would be there (see
+ * {@link IriRepair}).
+ *
+ * The handler is not started or ended with each Any23 document, so that
+ * triples from other extractors can be passed to it as well.
+ */
+public class StatementTripleHandler implements TripleHandler {
+
+	private static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	private final RDFHandler handler;
+	private long count = 0;
+
+	/**
+	 * @param handler Receives every triple
+	 */
+	public StatementTripleHandler(RDFHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * @return Number of triples passed on so far
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public void startDocument(IRI documentIRI) {
+	}
+
+	@Override
+	public void openContext(ExtractionContext context) {
+	}
+
+	@Override
+	public void receiveTriple(Resource s, IRI p, Value o, IRI g, ExtractionContext context)
+			throws TripleHandlerException {
+		try {
+			handler.handleStatement(factory.createStatement(clean(s), clean(p), clean(o)));
+			count++;
+		} catch (RDFHandlerException e) {
+			throw new TripleHandlerException("Cannot handle triple " + s + " " + p + " " + o, e);
+		}
+	}
+
+	@Override
+	public void receiveNamespace(String prefix, String uri, ExtractionContext context) throws TripleHandlerException {
+		try {
+			handler.handleNamespace(prefix, uri);
+		} catch (RDFHandlerException e) {
+			throw new TripleHandlerException("Cannot handle namespace " + prefix, e);
+		}
+	}
+
+	@Override
+	public void closeContext(ExtractionContext context) {
+	}
+
+	@Override
+	public void endDocument(IRI documentIRI) {
+	}
+
+	@Override
+	public void setContentLength(long contentLength) {
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T extends Value> T clean(T value) {
+		if (!(value instanceof IRI))
+			return value;
+		String iri = value.stringValue();
+		String fixed = IriRepair.repair(iri);
+		return fixed == iri ? value : (T) factory.createIRI(fixed);
+	}
+}
@@ -0,0 +1,283 @@
+package hwu.elixir.scrape.scraper;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.rio.ParseErrorListener;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
+import org.eclipse.rdf4j.rio.helpers.NTriplesParserSettings;
+import org.eclipse.rdf4j.rio.helpers.RDFHandlerWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses NTriples line by line, as RDF4J does, without giving up on the whole
+ * document when a line cannot be read. The document is read in a single pass,
+ * each statement going straight to the handler. A line RDF4J cannot read is
+ * repaired if it can be and passed on in its place, or else skipped, so triples
+ * (and blank nodes) reach the handler in the order of the document. Every such
+ * line is logged.
+ *
+ * The usual problem, from Any23, is a character RDF4J does not allow in an IRI,
+ * e.g., |. Such characters are percent-encoded, as by {@link IriRepair}, in the
+ * IRIs of the offending line only, so literals and the IRIs of other lines are
+ * never changed; Unicode escape sequences in IRIs are kept.
+ *
+ * Blank node labels are kept, so a blank node in a repaired line is the same
+ * as in the rest of the document.
+ */
+public class TolerantNTriplesParser {
+
+	private static Logger logger = LoggerFactory.getLogger(TolerantNTriplesParser.class.getName());
+
+	private int repaired = 0;
+	private int skipped = 0;
+
+	/**
+	 * @return Lines repaired in the last parse
+	 */
+	public int getRepaired() {
+		return repaired;
+	}
+
+	/**
+	 * @return Lines skipped in the last parse
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * Parses NTriples into a handler, which is started and ended.
+	 *
+	 * @param nTriples The NTriples
+	 * @param handler  Receives the triples
+	 * @throws RDFParseException   if the document cannot be read at all
+	 * @throws RDFHandlerException if the handler fails
+	 */
+	public void parse(String nTriples, RDFHandler handler) throws RDFParseException, RDFHandlerException {
+		repaired = 0;
+		skipped = 0;
+
+		Counter counter = new Counter(handler);
+		handler.startRDF();
+		read(newParser(counter, new BadLines(nTriples, counter)), nTriples);
+
+		// RDF4J does not report every line it cannot read
+		int unreported = countLines(nTriples) - counter.count - skipped;
+		if (unreported > 0) {
+			skipped += unreported;
+			logger.warn("Skipped " + unreported + " unreadable NTriples lines");
+		}
+		handler.endRDF();
+	}
+
+	/**
+	 * @param errors Told of the lines that cannot be read; null to ignore them
+	 */
+	private static RDFParser newParser(RDFHandler handler, ParseErrorListener errors) {
+		RDFParser parser = Rio.createParser(RDFFormat.NTRIPLES);
+		parser.getParserConfig().set(NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES, false);
+		parser.getParserConfig().set(BasicParserSettings.PRESERVE_BNODE_IDS, true);
+		if (errors != null)
+			parser.setParseErrorListener(errors);
+		parser.setRDFHandler(handler);
+		return parser;
+	}
+
+	private static void read(RDFParser parser, String nTriples) {
+		try {
+			parser.parse(new StringReader(nTriples), "");
+		} catch (IOException e) {
+			// cannot happen with a StringReader
+			throw new RDFParseException(e);
+		}
+	}
+
+	/**
+	 * RDF4J reports a line it cannot read, and skips it, before reading the next
+	 * one, so the line is repaired or skipped here, in its place. Lines are
+	 * reported in order, so the text of each is found by reading on from the
+	 * last.
+	 */
+	private class BadLines implements ParseErrorListener {
+		private final String nTriples;
+		private final Counter handler;
+		private RDFParser repairs = null;
+		private long lastBad = 0;
+		private long lineNo = 1;
+		private int start = 0;
+
+		private BadLines(String nTriples, Counter handler) {
+			this.nTriples = nTriples;
+			this.handler = handler;
+		}
+
+		@Override
+		public void warning(String msg, long lineNo, long colNo) {
+		}
+
+		@Override
+		public void error(String msg, long lineNo, long colNo) {
+			bad(msg, lineNo);
+		}
+
+		@Override
+		public void fatalError(String msg, long lineNo, long colNo) {
+			bad(msg, lineNo);
+		}
+
+		private void bad(String msg, long badLine) {
+			// only the first problem on a line
+			if (badLine <= lastBad)
+				return;
+			lastBad = badLine;
+
+			while (lineNo < badLine && start < nTriples.length()) {
+				start = nextLine(nTriples, start);
+				lineNo++;
+			}
+			if (lineNo != badLine || start >= nTriples.length())
+				return;
+			String line = nTriples.substring(start, nextLine(nTriples, start)).trim();
+
+			String fixed = repair(line);
+			int before = handler.count;
+			if (!fixed.equals(line)) {
+				if (repairs == null)
+					repairs = newParser(handler, null);
+				read(repairs, fixed);
+			}
+			if (handler.count > before) {
+				repaired++;
+				logger.warn("Repaired NTriples line " + badLine + " (" + msg + "): " + fixed);
+			} else {
+				skipped++;
+				logger.warn("Skipped NTriples line " + badLine + " (" + msg + "): " + line);
+			}
+		}
+	}
+
+	/**
+	 * @return Where the line after the one starting at start begins
+	 */
+	private static int nextLine(String text, int start) {
+		int end = text.indexOf('\n', start);
+		return end == -1 ? text.length() : end + 1;
+	}
+
+	/**
+	 * Percent-encodes the characters RDF4J refuses within the IRIs of a line (see
+	 * {@link IriRepair}), keeping Unicode escape sequences.
+	 *
+	 * @param line A line of NTriples
+	 * @return The line repaired, or the same line if there was nothing to repair
+	 */
+	static String repair(String line) {
+		StringBuilder fixed = new StringBuilder(line.length() + 8);
+		boolean inIri = false;
+		boolean inLiteral = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (inLiteral) {
+				if (c == '\\' && i + 1 < line.length()) {
+					fixed.append(c);
+					c = line.charAt(++i);
+				} else if (c == '"') {
+					inLiteral = false;
+				}
+			} else if (inIri) {
+				int escape = c == '\\' ? escapeLength(line, i) : 0;
+				if (escape > 0) {
+					fixed.append(line, i, i + escape);
+					i += escape - 1;
+					continue;
+				} else if (c == '>') {
+					inIri = false;
+				} else {
+					IriRepair.append(c, fixed);
+					continue;
+				}
+			} else if (c == '<') {
+				inIri = true;
+			} else if (c == '"') {
+				inLiteral = true;
+			}
+			fixed.append(c);
+		}
+		return fixed.toString();
+	}
+
+	/**
+	 * @return Length of the Unicode escape sequence (backslash, u and four hex
+	 *         digits, or U and eight) starting at i, or 0 if there is none
+	 */
+	private static int escapeLength(String line, int i) {
+		if (i + 1 >= line.length())
+			return 0;
+		char kind = line.charAt(i + 1);
+		int length = kind == 'u' ? 6 : kind == 'U' ? 10 : 0;
+		if (length == 0 || i + length > line.length())
+			return 0;
+		for (int j = i + 2; j < i + length; j++) {
+			if (Character.digit(line.charAt(j), 16) == -1)
+				return 0;
+		}
+		return length;
+	}
+
+	/**
+	 * @return Number of lines that are neither blank nor comments
+	 */
+	private static int countLines(String text) {
+		int lines = 0;
+		boolean content = false;
+		boolean lineStart = true;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || c == '\r') {
+				if (content)
+					lines++;
+				content = false;
+				lineStart = true;
+			} else if (lineStart && !Character.isWhitespace(c)) {
+				content = c != '#';
+				lineStart = false;
+			}
+		}
+		return content ? lines + 1 : lines;
+	}
+
+	/**
+	 * Passes statements on and counts them; ignores the start and end of the
+	 * parses, as several are passed to the same handler.
+	 */
+	private static class Counter extends RDFHandlerWrapper {
+		private int count = 0;
+
+		private Counter(RDFHandler next) {
+			super(next);
+		}
+
+		@Override
+		public void startRDF() {
+		}
+
+		@Override
+		public void endRDF() {
+		}
+
+		@Override
+		public void handleStatement(Statement statement) throws RDFHandlerException {
+			count++;
+			super.handleStatement(statement);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package hwu.elixir.scrape.scraper.examples;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.rdf4j.model.Model;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import hwu.elixir.scrape.exceptions.CannotWriteException;
+import hwu.elixir.scrape.exceptions.JsonLDInspectionException;
+import hwu.elixir.scrape.exceptions.MissingMarkupException;
+import hwu.elixir.scrape.fetch.HtmlArchive;
+import hwu.elixir.scrape.scraper.ScraperFilteredCore;
+
+/**
+ * Extracts the (bio)schema markup again from the HTML kept in an
+ * {@link HtmlArchive}, e.g., after a change to the processing of the triples.
+ * Nothing is fetched or rendered, so a whole crawl can be reprocessed quickly.
+ *
+ * Only the latest copy of each URL in the archive is used. Pages are extracted
+ * in parallel, one per processor, and each is written to its own NQuads file
+ * named, as by {@link FileScraper}, after the context counter. The graphs keep
+ * the date on which the page was originally fetched.
+ *
+ * Usage: <code>ArchiveReprocessor [archiveFile [outputFolder]]</code>; both
+ * default to the values in the properties file.
+ */
+public class ArchiveReprocessor extends ScraperFilteredCore {
+
+	private static SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd 'at' HH:mm:ss z");
+	private static Logger logger = LoggerFactory.getLogger(ArchiveReprocessor.class.getName());
+
+	/**
+	 * Reprocesses every URL of the archive.
+	 *
+	 * @param archiveFile  The archive written during a scrape
+	 * @param outputFolder Folder the NQuads files are written to
+	 * @param threads      Number of pages extracted at once
+	 * @return Number of pages successfully reprocessed
+	 * @throws IOException if the archive cannot be read
+	 */
+	public int reprocess(File archiveFile, String outputFolder, int threads) throws IOException {
+		File directory = new File(outputFolder);
+		if (!directory.exists())
+			directory.mkdirs();
+
+		// first pass: find the latest copy of each URL
+		Map<String, Long> latest = new HashMap<>();
+		long records = HtmlArchive.read(archiveFile,
+				page -> latest.merge(page.getUrl(), page.getFetchTime(), Math::max));
+		logger.info("Archive " + archiveFile + " holds " + records + " pages for " + latest.size() + " URLs");
+
+		AtomicLong contextCounter = new AtomicLong(properties.getContextCounter());
+		AtomicInteger succeeded = new AtomicInteger();
+		ThreadLocal<ArchiveReprocessor> workers = ThreadLocal.withInitial(ArchiveReprocessor::new);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		// limits the number of pages read ahead of the workers
+		Semaphore queued = new Semaphore(threads * 2);
+
+		// second pass: extract each latest copy
+		try {
+			HtmlArchive.read(archiveFile, page -> {
+				if (!latest.remove(page.getUrl(), page.getFetchTime()))
+					return;
+
+				queued.acquireUninterruptibly();
+				executor.execute(() -> {
+					try {
+						if (workers.get().reprocessPage(page, contextCounter.getAndIncrement(), outputFolder))
+							succeeded.incrementAndGet();
+					} catch (RuntimeException e) {
+						logger.error("Failed to reprocess " + page.getUrl(), e);
+					} finally {
+						queued.release();
+					}
+				});
+			});
+		} finally {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			} catch (InterruptedException e) {
+				logger.error("Interrupted whilst waiting for pages to be reprocessed");
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+			properties.setContextCounter(contextCounter.get());
+			properties.updateConfig();
+		}
+
+		return succeeded.get();
+	}
+
+	/**
+	 * Extracts a single archived page and writes it to its own file.
+	 *
+	 * @param page           The page
+	 * @param contextCounter Counter value claimed for the page
+	 * @param outputFolder   Folder the file is written to
+	 * @return true if the page was written
+	 */
+	private boolean reprocessPage(HtmlArchive.ArchivedPage page, long contextCounter, String outputFolder) {
+		String url = page.getUrl();
+		try {
+			Model model = extractModel(page.getHtml(), url, contextCounter, new Date(page.getFetchTime()));
+			if (model == null) {
+				logger.error(url + " was NOT successfully reprocessed.");
+				return false;
+			}
+			writeModel(model, outputFolder + "/" + contextCounter + ".nq", false, url);
+			return true;
+		} catch (JsonLDInspectionException e) {
+			logger.error("The JSON-LD could not be parsed for " + url);
+		} catch (MissingMarkupException e) {
+			logger.error("Problem obtaining markup from " + url + ".");
+		} catch (CannotWriteException e) {
+			logger.error("Problem writing file for " + url + " to the " + outputFolder + " directory.");
+		}
+		return false;
+	}
+
+	public static void main(String[] args) throws IOException {
+		logger.info("*************************** STARTING REPROCESSING: " + formatter.format(new Date(System.currentTimeMillis())));
+		ArchiveReprocessor core = new ArchiveReprocessor();
+
+		String archiveFile = args.length > 0 ? args[0] : core.properties.getHtmlArchiveFile();
+		String outputFolder = args.length > 1 ? args[1] : core.properties.getOutputFolder();
+		if (archiveFile.isEmpty() || !new File(archiveFile).exists()) {
+			logger.error("Cannot find archive *" + archiveFile + "*. Please give the archive as argument or set property htmlArchiveFile");
+			System.exit(-1);
+		}
+
+		long start = System.currentTimeMillis();
+		int threads = Runtime.getRuntime().availableProcessors();
+		int count = core.reprocess(new File(archiveFile), outputFolder, threads);
+		logger.info("Reprocessed " + count + " pages with " + threads + " threads in "
+				+ (System.currentTimeMillis() - start) / 1000 + "s");
+
+		logger.info("*************************** ENDING REPROCESSING: " + formatter.format(new Date(System.currentTimeMillis())));
+		System.exit(0);
+	}
+}
@@ -4,9 +4,13 @@ import java.io.*;
 import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.rdf4j.model.Model;
 import org.eclipse.rdf4j.rio.RDFFormat;
 import org.eclipse.rdf4j.rio.Rio;
 import org.jsoup.Jsoup;
@@ -21,9 +25,17 @@ import hwu.elixir.scrape.exceptions.CannotWriteException;
 import hwu.elixir.scrape.exceptions.FourZeroFourException;
 import hwu.elixir.scrape.exceptions.JsonLDInspectionException;
 import hwu.elixir.scrape.exceptions.MissingMarkupException;
+import hwu.elixir.scrape.fetch.AsyncFetchPipeline;
+import hwu.elixir.scrape.fetch.FetchResult;
+import hwu.elixir.scrape.fetch.HtmlArchive;
+import hwu.elixir.scrape.fetch.StaticFetchEngine;
+import hwu.elixir.scrape.fetch.ValidatorStore;
+import hwu.elixir.scrape.scraper.NQuadsSink;
+import hwu.elixir.scrape.scraper.ParsedPage;
 import hwu.elixir.scrape.scraper.ScraperFilteredCore;
 
 import hwu.elixir.utils.Helpers;
+import hwu.elixir.utils.PolitenessScheduler;
 import org.w3c.dom.NodeList;
 
 import javax.xml.xpath.XPath;
@@ -45,6 +57,15 @@ public class FileScraper extends ScraperFilteredCore {
 	private static Logger logger = LoggerFactory.getLogger(FileScraper.class.getName());
 	private static final int maxURLs = 50000;
 
+	private PolitenessScheduler scheduler = null;
+	// set by a worker that finds a reason to end the scrape; the main thread stops handing out lines
+	private volatile boolean stopRequested = false;
+	// static pages are fetched asynchronously if set; see scrapeAsync
+	private AsyncFetchPipeline pipeline = null;
+	// outputs of the batches handed to the pipeline that are still open
+	private List<NQuadsSink> asyncSinks = Collections.synchronizedList(new ArrayList<>());
+	private ThreadLocal<FileScraper> extractors = ThreadLocal.withInitial(FileScraper::new);
+
 	/**
 	 * Read the file (specified in application.properties) and puts each URL into a
 	 * list for later scraping
@@ -140,6 +161,8 @@ public class FileScraper extends ScraperFilteredCore {
 			//we have a static option on the file after the comma
 		} else if (flag.equalsIgnoreCase("dynamic")) {
 			flag = "dynamic";
+		} else if (flag.equalsIgnoreCase("auto")) {
+			flag = "auto";
 		} else {
 			flag = "unknown";
 		}
@@ -151,7 +174,7 @@ public class FileScraper extends ScraperFilteredCore {
 	 * Method that writes URLs that have not been successfully scraped for possible future scraping
 	 * The method creates a new text file in the same directory that the nQuads are stored
 	 */
-	private void unscrapedURLsToFile (String outFolderName, String outFileName, String unscrapedURL, long contextCounter) {
+	private synchronized void unscrapedURLsToFile (String outFolderName, String outFileName, String unscrapedURL, long contextCounter) {
 
 		FileWriter fw = null;
 		BufferedWriter bw = null;
@@ -183,11 +206,14 @@ public class FileScraper extends ScraperFilteredCore {
 
 
 	/**
-	 * Reads a list of URLs from a specified file; scrapes each one sequentially and writes the parsed (bio)schema 
+	 * Reads a list of URLs from a specified file; scrapes each one and writes the parsed (bio)schema 
 	 * markup to a NQuads file inside a specified directory. 
 	 * 
 	 * Each file is given a unique name based on the order (sequential number) in which it was scraped.
 	 * This number is not reset, instead auto-incrementing with each scrape or run of this scraper. 
+	 * 
+	 * If property *scraperThreads* is greater than 1 the lines of the file are scraped concurrently by
+	 * that many workers; otherwise they are scraped sequentially on the calling thread.
 	 *  
 	 */
 	public void scrapeAllUrls(ArrayList<String> urlsToScrape) throws IOException {
@@ -195,149 +221,433 @@ public class FileScraper extends ScraperFilteredCore {
 		// Load the settings from the application.properties file
 		readFileList();
 
-		long contextCounter = properties.getContextCounter();
+		AtomicLong contextCounter = new AtomicLong(properties.getContextCounter());
 		String outputFolder = properties.getOutputFolder();
-		boolean dynamicScrape = properties.dynamic();
-
-		// Loop through all the URLs in the file
-		for (String url : urlsToScrape) {
-			int result = 0;
-
-			// If there is a comma on the URL, which indicates a dynamic/static flag
-			// or maybe just a mistake, check if static/dynamic is setup as flag and
-			// scrape the URL accordingly, if some other text as flag just ignore text and
-			// scrape URL with the default approach (dynamic), this is done on a per URL function
-			if (url.indexOf(",") != -1){
-				String tempFlag = getDynamicORStaticFlag(url);
-				if (tempFlag.equalsIgnoreCase("static")){
-					dynamicScrape = false;
-					logger.info("Static scrape (local setting)");
-				} else if (tempFlag.equalsIgnoreCase("dynamic")){
-					dynamicScrape = true;
-					logger.info("Dynamic scrape (local setting)");
-				} else if (tempFlag.equalsIgnoreCase("unknown")) {
-					//This case is when the flag in not set to dynamic or static, because it is
-					//not known what is the case, the safest option is to set to dynamic
-					dynamicScrape = true;
-					logger.info("Unknown local setting, scraper set to default (dynamic)");
+		int threads = properties.getScraperThreads();
+
+		if (properties.getAsyncFetchInFlight() > 0) {
+			pipeline = new AsyncFetchPipeline(StaticFetchEngine.getInstance(), properties.getAsyncFetchInFlight(),
+					Runtime.getRuntime().availableProcessors());
+		}
+
+		scrapeLines(urlsToScrape, new PolitenessScheduler(properties), contextCounter, outputFolder, threads);
+
+		if (pipeline != null) {
+			try {
+				pipeline.awaitCompletion();
+			} catch (InterruptedException e) {
+				logger.error("Interrupted whilst waiting for asynchronous fetches");
+				Thread.currentThread().interrupt();
+			}
+			pipeline.shutdown();
+			// whatever is left in the buffers, e.g., of batches whose submission was interrupted
+			synchronized (asyncSinks) {
+				asyncSinks.forEach(FileScraper::closeSink);
+				asyncSinks.clear();
+			}
+		}
+
+		logger.info("Scraping over.");
+		properties.setContextCounter(contextCounter.get());
+		properties.updateConfig();
+		shutdown();
+	}
+
+	/**
+	 * Scrapes every line, concurrently if more than one thread is given. Stops
+	 * handing out lines once a line asks for the scrape to end, e.g., a sitemap
+	 * that is too large.
+	 *
+	 * @param lines          Lines of the URL file
+	 * @param scheduler      Paces the requests to each host
+	 * @param contextCounter Shared counter; a value is claimed for each page or sitemap scraped
+	 * @param outputFolder   Where the output is written
+	 * @param threads        Number of workers
+	 */
+	void scrapeLines(List<String> lines, PolitenessScheduler scheduler, AtomicLong contextCounter, String outputFolder,
+			int threads) throws IOException {
+		this.scheduler = scheduler;
+		if (threads > 1) {
+			scrapeConcurrently(lines, contextCounter, outputFolder, threads);
+		} else {
+			// Loop through all the URLs in the file
+			for (String url : lines) {
+				if (stopRequested)
+					break;
+				scrapeLine(url, this, contextCounter, outputFolder, new AtomicLong(-1));
+			}
+		}
+	}
+
+	/**
+	 * Scrapes every line with a fixed number of workers. Each worker has its own
+	 * {@link ScraperFilteredCore} as the scraper keeps per page state. A line that
+	 * fails on one worker is logged and does not stop the others.
+	 *
+	 * Work is handed out by a {@link PolitenessScheduler} so that no single host
+	 * is sent more than *hostMaxConcurrency* requests at once, or requests more
+	 * often than every *hostCrawlDelay* milliseconds.
+	 */
+	private void scrapeConcurrently(List<String> lines, AtomicLong contextCounter, String outputFolder, int threads) {
+		logger.info("Scraping with " + threads + " concurrent workers");
+
+		ThreadLocal<ScraperFilteredCore> workers = ThreadLocal.withInitial(() -> {
+			ScraperFilteredCore worker = new ScraperFilteredCore();
+			worker.setPolitenessScheduler(scheduler);
+			return worker;
+		});
+
+		for (String line : lines) {
+			String url = line.indexOf(",") != -1 ? getURLFromTextLine(line) : line;
+			scheduler.submit(url, () -> {
+				AtomicLong claimed = new AtomicLong(-1);
+				try {
+					scrapeLine(line, workers.get(), contextCounter, outputFolder, claimed);
+				} catch (Exception e) {
+					logger.error("Worker failed whilst scraping " + line, e);
+					// the line failed before claiming a value: claim one so its entry has a file of its own
+					long counter = claimed.get() != -1 ? claimed.get() : claim(contextCounter, claimed);
+					unscrapedURLsToFile(outputFolder, null, line, counter);
 				}
+			});
+		}
 
-				url = getURLFromTextLine(url);
+		scheduler.run(threads);
+		if (stopRequested)
+			logger.info("Scraping stopped early; lines not started were not scraped");
+	}
+
+	/**
+	 * Claims the next value of the counter.
+	 *
+	 * @param contextCounter Shared counter
+	 * @param claimed        Set to the value claimed
+	 * @return The value claimed
+	 */
+	private static long claim(AtomicLong contextCounter, AtomicLong claimed) {
+		long value = contextCounter.getAndIncrement();
+		claimed.set(value);
+		return value;
+	}
+
+	/**
+	 * Scrapes a single line of the URL file, which is either a web page or a sitemap, optionally
+	 * followed by a comma and a dynamic/static flag.
+	 *
+	 * @param url            Line from the file
+	 * @param scraper        Scraper used for the line; must not be shared with another thread
+	 * @param contextCounter Shared counter; a value is claimed for each page or sitemap scraped
+	 * @param outputFolder   Where the output is written
+	 * @param claimed        Set to the last value of the counter claimed for the line
+	 */
+	private void scrapeLine(String url, ScraperFilteredCore scraper, AtomicLong contextCounter, String outputFolder,
+			AtomicLong claimed) throws IOException {
+		int result = 0;
+		// null means auto: static first, rendered only if needed
+		Boolean dynamicScrape = properties.autoScrape() ? null : properties.dynamic();
+
+		// If there is a comma on the URL, which indicates a dynamic/static flag
+		// or maybe just a mistake, check if static/dynamic is setup as flag and
+		// scrape the URL accordingly, if some other text as flag just ignore text and
+		// scrape URL with the default approach (dynamic), this is done on a per URL function
+		if (url.indexOf(",") != -1){
+			String tempFlag = getDynamicORStaticFlag(url);
+			if (tempFlag.equalsIgnoreCase("static")){
+				dynamicScrape = false;
+				logger.info("Static scrape (local setting)");
+			} else if (tempFlag.equalsIgnoreCase("dynamic")){
+				dynamicScrape = true;
+				logger.info("Dynamic scrape (local setting)");
+			} else if (tempFlag.equalsIgnoreCase("auto")){
+				dynamicScrape = null;
+				logger.info("Auto scrape (local setting)");
+			} else if (tempFlag.equalsIgnoreCase("unknown")) {
+				//This case is when the flag in not set to dynamic or static, because it is
+				//not known what is the case, the safest option is to set to dynamic
+				dynamicScrape = true;
+				logger.info("Unknown local setting, scraper set to default (dynamic)");
 			}
 
-			logger.info("Attempting to scrape: " + url);
+			url = getURLFromTextLine(url);
+		}
 
-			// Check if the word sitemap is part of the URL (assumes that the URL is a sitemap if true)
-			boolean sitemap = url.toLowerCase().contains("sitemap");
+		logger.info("Attempting to scrape: " + url);
 
+		// Check if the word sitemap is part of the URL (assumes that the URL is a sitemap if true)
+		boolean sitemap = url.toLowerCase().contains("sitemap");
 
-			if (sitemap) {
 
-				Document sitemapContent = getSitemap(url);
+		if (sitemap) {
 
-				// Traverse sitemap index using xpath expression
-				W3CDom w3cDom = new W3CDom();
-				XPath xPath = XPathFactory.newInstance().newXPath();
-				String expression = "/*"; // Select root node
-				try {
-					Object res = xPath.compile(expression).evaluate(w3cDom.fromJsoup(sitemapContent), XPathConstants.NODESET);
-					NodeList nodes = (NodeList) res;
-					logger.info("xPath: " + nodes.item(0).getNodeName());
-					//if true this is sitemap index
-					if (nodes.item(0).getNodeName().equalsIgnoreCase("sitemapindex")){
-						logger.info("Sitemapindex found in URL: " + url);
-						Elements sitemaps = getSitemapURLs(sitemapContent, "loc");
-						for (Element indexSitemap : sitemaps){
-							//logger.info(nodes.item(i).getTextContent());
-							sitemapContent = getSitemap(indexSitemap.text());
-							scrapeSitemap(getSitemapURLs(sitemapContent, "loc").eachText().toArray(new String[0]), contextCounter, dynamicScrape, outputFolder);
-						}
-						//if true this is a sitemap
-					} else if (nodes.item(0).getNodeName().equalsIgnoreCase("urlset")){
-						logger.info("Sitemap found in URL: " + url);
-						/*for (int i=0; i<nodes.getLength(); i++){
-							logger.info(nodes.item(i).getTextContent());
-						}*/
-						sitemapContent = getSitemap(url);
-						scrapeSitemap((String[]) getSitemapURLs(sitemapContent, "loc").toArray(), contextCounter, dynamicScrape, outputFolder);
-					} else {
-						logger.warn("Unknown sitemap type");
-					}
+			Document sitemapContent = getSitemap(url);
 
-				} catch (XPathExpressionException e) {
-					e.printStackTrace();
-				}
-			} else { // else just scrape as a website that has markup
-				String[] urls = {url};
-				try {
-					result = scrape(urls, properties.getOutputFolder(), null, contextCounter++, dynamicScrape);
-				} catch (FourZeroFourException e) {
-					logger.error(url + "returned a 404.");
-					unscrapedURLsToFile(outputFolder, null, url, contextCounter);
-				} catch (JsonLDInspectionException e) {
-					logger.error("The JSON-LD could not be parsed for " + url);
-					unscrapedURLsToFile(outputFolder, null, url, contextCounter);
-				} catch (CannotWriteException e) {
-					logger.error("Problem writing file for " + url + " to the " + properties.getOutputFolder() + " directory.");
-					unscrapedURLsToFile(outputFolder, null, url, contextCounter);
-				} catch (MissingMarkupException e) {
-					logger.error("Problem obtaining markup from " + url + ".");
-					unscrapedURLsToFile(outputFolder, null, url, contextCounter);
+			// Traverse sitemap index using xpath expression
+			W3CDom w3cDom = new W3CDom();
+			XPath xPath = XPathFactory.newInstance().newXPath();
+			String expression = "/*"; // Select root node
+			try {
+				Object res = xPath.compile(expression).evaluate(w3cDom.fromJsoup(sitemapContent), XPathConstants.NODESET);
+				NodeList nodes = (NodeList) res;
+				logger.info("xPath: " + nodes.item(0).getNodeName());
+				//if true this is sitemap index
+				if (nodes.item(0).getNodeName().equalsIgnoreCase("sitemapindex")){
+					logger.info("Sitemapindex found in URL: " + url);
+					Elements sitemaps = getSitemapURLs(sitemapContent, "loc");
+					for (Element indexSitemap : sitemaps){
+						if (stopRequested || !scraper.pace(indexSitemap.text()))
+							break;
+						//logger.info(nodes.item(i).getTextContent());
+						sitemapContent = getSitemap(indexSitemap.text());
+						scrapeSitemap(getSitemapURLs(sitemapContent, "loc").eachText().toArray(new String[0]), scraper, claim(contextCounter, claimed), dynamicScrape, outputFolder);
+					}
+					//if true this is a sitemap
+				} else if (nodes.item(0).getNodeName().equalsIgnoreCase("urlset")){
+					logger.info("Sitemap found in URL: " + url);
+					/*for (int i=0; i<nodes.getLength(); i++){
+						logger.info(nodes.item(i).getTextContent());
+					}*/
+					scrapeSitemap(getSitemapURLs(sitemapContent, "loc").eachText().toArray(new String[0]), scraper, claim(contextCounter, claimed), dynamicScrape, outputFolder);
+				} else {
+					logger.warn("Unknown sitemap type");
 				}
-				displayResult(url, result, properties.getOutputFolder(), contextCounter - 1L);
-			}
 
+			} catch (XPathExpressionException e) {
+				e.printStackTrace();
+			}
+		} else { // else just scrape as a website that has markup
+			String[] urls = {url};
+			long pageCounter = claim(contextCounter, claimed);
+			if (pipeline != null && Boolean.FALSE.equals(dynamicScrape)) {
+				scrapeAsync(urls, pageCounter, outputFolder);
+				return;
+			}
+			try {
+				result = scraper.scrape(urls, outputFolder, null, pageCounter, dynamicScrape);
+			} catch (FourZeroFourException e) {
+				logger.error(url + "returned a 404.");
+				unscrapedURLsToFile(outputFolder, null, url, pageCounter);
+			} catch (JsonLDInspectionException e) {
+				logger.error("The JSON-LD could not be parsed for " + url);
+				unscrapedURLsToFile(outputFolder, null, url, pageCounter);
+			} catch (CannotWriteException e) {
+				logger.error("Problem writing file for " + url + " to the " + outputFolder + " directory.");
+				unscrapedURLsToFile(outputFolder, null, url, pageCounter);
+			} catch (MissingMarkupException e) {
+				logger.error("Problem obtaining markup from " + url + ".");
+				unscrapedURLsToFile(outputFolder, null, url, pageCounter);
+			}
+			displayResult(url, result, outputFolder, pageCounter);
 		}
-		logger.info("Scraping over.");
-		properties.setContextCounter(contextCounter);
-		properties.updateConfig();
-		shutdown();
 	}
 
 
-	private void scrapeSitemap(String[] sitemapURLs, long contextCounter, boolean dynamicScrape, String outputFolder){
+	private void scrapeSitemap(String[] sitemapURLs, ScraperFilteredCore scraper, long contextCounter, Boolean dynamicScrape, String outputFolder){
 		boolean scraped = false;
 		int result = 0;
 
 		if (maxURLs<sitemapURLs.length){
 			logger.info("MAX SITEMAP LIMIT IS: " + maxURLs + ", Please make sure your sitemap does not exceed that limit and adhere to sitemap guidelines");
 			logger.info("Scraping over");
-			properties.setContextCounter(contextCounter);
-			properties.updateConfig();
-			shutdown();
+			// the main thread saves the counter and shuts down once the lines already started are done
+			stopRequested = true;
+			scheduler.cancel();
+			return;
+		}
+
+		if (pipeline != null && Boolean.FALSE.equals(dynamicScrape)) {
+			scrapeAsync(sitemapURLs, contextCounter, outputFolder);
+			return;
 		}
 
 
 			logger.info("Attempting to scrape: " + sitemapURLs[result]);
+			// the line was scheduled for the sitemap itself, so its first page waits its turn too
+			if (!scraper.pace(sitemapURLs[0]))
+				return;
 			try {
-				result = scrape(sitemapURLs, properties.getOutputFolder(), null, contextCounter++, dynamicScrape);
+				result = scraper.scrape(sitemapURLs, outputFolder, null, contextCounter, dynamicScrape);
 				scraped = true;
 			} catch (FourZeroFourException e) {
 				logger.error(sitemapURLs + "returned a 404.");
-				unscrapedURLsToFile(outputFolder, null, sitemapURLs[result], contextCounter - 1L);
+				unscrapedURLsToFile(outputFolder, null, sitemapURLs[result], contextCounter);
 				scraped = false;
 			} catch (JsonLDInspectionException e) {
 				logger.error("The JSON-LD could not be parsed for " + sitemapURLs);
-				unscrapedURLsToFile(outputFolder, null, sitemapURLs[result], contextCounter - 1L);
+				unscrapedURLsToFile(outputFolder, null, sitemapURLs[result], contextCounter);
 				scraped = false;
 			} catch (CannotWriteException e) {
-				logger.error("Problem writing file for " + sitemapURLs[result] + " to the " + properties.getOutputFolder() + " directory.");
-				unscrapedURLsToFile(outputFolder, null, sitemapURLs[result], contextCounter - 1L);
+				logger.error("Problem writing file for " + sitemapURLs[result] + " to the " + outputFolder + " directory.");
+				unscrapedURLsToFile(outputFolder, null, sitemapURLs[result], contextCounter);
 				scraped = false;
 			} catch (MissingMarkupException e) {
 				logger.error("Problem obtaining markup from " + sitemapURLs[result] + ".");
-				unscrapedURLsToFile(outputFolder, null, sitemapURLs[result], contextCounter - 1L);
+				unscrapedURLsToFile(outputFolder, null, sitemapURLs[result], contextCounter);
 				scraped = false;
 			}
 
 			if (scraped) {
-				displayResult(sitemapURLs[0], result, properties.getOutputFolder(), contextCounter - 1L);
+				displayResult(sitemapURLs[0], result, outputFolder, contextCounter);
 			} else {
 				logger.error("URL " + sitemapURLs[result] + " NOT SCRAPED, added to unscraped list");
 			}
 
 	}
 
+	/**
+	 * Hands static pages to the {@link AsyncFetchPipeline} and returns without
+	 * waiting for them. All pages are written to the same file, as by
+	 * {@link ScraperFilteredCore#scrape(String[], String, String, Long, Boolean)};
+	 * pages that fail are added to the unscraped list. No more than
+	 * *hostMaxConcurrency* requests are in flight to the same host.
+	 *
+	 * @param urls           Pages to scrape, e.g., those of a sitemap
+	 * @param contextCounter Counter value claimed for the pages
+	 * @param outputFolder   Where the output is written
+	 */
+	private void scrapeAsync(String[] urls, long contextCounter, String outputFolder) {
+		File directory = new File(outputFolder);
+		if (!directory.exists())
+			directory.mkdir();
+
+		String outputFileName = outputFolder + "/" + contextCounter + ".nq";
+		// one file for all pages, replacing any old one; closed once every page is done or, at the latest, at the end
+		NQuadsSink sink = NQuadsSink.create(outputFileName, false);
+		asyncSinks.add(sink);
+		AtomicInteger remaining = new AtomicInteger(urls.length);
+		AtomicInteger written = new AtomicInteger();
+
+		int submitted = 0;
+		for (String pageUrl : urls) {
+			String url = fixURL(pageUrl);
+			try {
+				scheduler.acquire(url);
+				try {
+					pipeline.submit(url, validatorHeaders(url), scheduler.reserve(url), result -> {
+						try {
+							return extractors.get().writeFetched(url, result, contextCounter, sink);
+						} catch (CannotWriteException e) {
+							logger.error("Problem writing file for " + url + " to the " + outputFolder + " directory.");
+							return false;
+						}
+					}, (done, failure) -> {
+						scheduler.release(url);
+						if (failure != null)
+							logger.error(url + " could not be fetched: " + failure.getMessage());
+						if (failure != null || !done)
+							unscrapedURLsToFile(outputFolder, null, url, contextCounter);
+						else
+							written.incrementAndGet();
+						if (remaining.decrementAndGet() == 0) {
+							asyncSinks.remove(sink);
+							closeSink(sink);
+							logger.info(written.get() + " of " + urls.length + " pages starting " + urls[0]
+									+ " written to " + outputFileName);
+						}
+					});
+				} catch (InterruptedException e) {
+					scheduler.release(url);
+					throw e;
+				}
+				submitted++;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				logger.error("Interrupted after submitting " + submitted + " of " + urls.length + " pages starting "
+						+ urls[0]);
+				// the pages not submitted will never be done; the sink is closed by the last page
+				// submitted or, if all are done already, at the end of the run
+				for (int i = submitted; i < urls.length; i++) {
+					unscrapedURLsToFile(outputFolder, null, urls[i], contextCounter);
+				}
+				remaining.addAndGet(submitted - urls.length);
+				return;
+			}
+		}
+	}
+
+	private static void closeSink(NQuadsSink sink) {
+		try {
+			sink.close();
+		} catch (IOException e) {
+			logger.error("Problem writing file " + sink.getFile(), e);
+		}
+	}
+
+	/**
+	 * Writes a page fetched by the {@link AsyncFetchPipeline}, as
+	 * {@link ScraperFilteredCore#scrape(String[], String, String, Long, Boolean)}
+	 * does: if the server says the page has not changed since it was last scraped
+	 * (see {@link ValidatorStore}), its previous quads are copied; otherwise its
+	 * markup is extracted and written, and the validators of the response are kept
+	 * for next time. Runs on an extraction thread.
+	 *
+	 * @param url            The page
+	 * @param result         The response
+	 * @param contextCounter Counter value claimed for the page
+	 * @param sink           The output
+	 * @return true if the page was written
+	 * @throws CannotWriteException
+	 */
+	private boolean writeFetched(String url, FetchResult result, long contextCounter, NQuadsSink sink)
+			throws CannotWriteException {
+		ValidatorStore store = ValidatorStore.getInstance();
+		Model model;
+		if (result.getStatusCode() == 304 && store.get(url) != null) {
+			logger.info(url + " not modified since last scrape");
+			if (reusePreviousOutput(url, sink))
+				return true;
+			// previous output is gone; scrape the page in full
+			store.remove(url);
+			ParsedPage page = wrapPageExtractionStatic(url);
+			model = page == null || page.isEmpty() ? null : extractPage(url, page, contextCounter);
+		} else {
+			store.offer(url, result.getHeader("ETag"), result.getHeader("Last-Modified"));
+			model = extractFetched(url, result, contextCounter);
+		}
+		if (model == null)
+			return false;
+
+		writeModel(model, sink, url);
+		store.commit(url, sink.getFile().getPath(), getGraph(model));
+		return true;
+	}
+
+	/**
+	 * Extracts the markup of a page fetched by the {@link AsyncFetchPipeline}.
+	 * Runs on an extraction thread.
+	 *
+	 * @param url            The page
+	 * @param result         The response
+	 * @param contextCounter Counter value claimed for the page
+	 * @return The processed triples, or null if the page could not be scraped
+	 */
+	private Model extractFetched(String url, FetchResult result, long contextCounter) {
+		if (!result.isSuccess()) {
+			logger.error(url + " produced a " + result.getStatusCode());
+			return null;
+		}
+		try {
+			return extractPage(url, parsePage(result.parse().normalise()), contextCounter);
+		} catch (IOException e) {
+			logger.error(url + " could not be parsed: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * @return The processed triples of a page, or null if it could not be scraped
+	 */
+	private Model extractPage(String url, ParsedPage page, long contextCounter) {
+		try {
+			HtmlArchive.getInstance().append(url, System.currentTimeMillis(), page.getHtml());
+			return extractModel(page, url, contextCounter, new Date());
+		} catch (JsonLDInspectionException e) {
+			logger.error("The JSON-LD could not be parsed for " + url);
+		} catch (MissingMarkupException e) {
+			logger.error("Problem obtaining markup from " + url + ".");
+		}
+		return null;
+	}
+
 	public static void main(String[] args) throws FourZeroFourException, JsonLDInspectionException, IOException {
 		logger.info("*************************** STARTING SCRAPE: " + formatter.format(new Date(System.currentTimeMillis())));
 		logger.info("Default charset: " + Charset.defaultCharset());
@@ -1,6 +1,11 @@
 package hwu.elixir.utils;
 
-import org.openqa.selenium.NoSuchSessionException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
@@ -9,16 +14,16 @@ import org.slf4j.LoggerFactory;
 
 
 /**
- * Creates and managers the chromium driver for Selenium.
- * Based on singleton pattern
+ * Creates the chromium drivers used by Selenium. Drivers are not shared from
+ * here; they are handed out and recycled by {@link ChromeDriverPool}.
  *
+ * @see ChromeDriverPool
  */
 public class ChromeDriverCreator {
-	
-	private volatile static WebDriver driver = null;
+
 	private static ChromeOptions chromeOptions = new ChromeOptions();
 	private static Logger logger = LoggerFactory.getLogger(ChromeDriverCreator.class.getName());
-	
+
 	static {
 		try{
 			ScraperProperties prop = ScraperProperties.getInstance();
@@ -26,44 +31,67 @@ public class ChromeDriverCreator {
 			logger.info("Location of chromiun driver: " + chromiumDriverLoc);
 			System.setProperty("webdriver.chrome.driver", chromiumDriverLoc);
 			chromeOptions.addArguments("--headless");
+			if (prop.useFastRender()) {
+				applyFastRenderProfile(chromeOptions, prop.getBlockedHosts());
+				logger.info("chrome will use the fast render profile");
+			}
 		} catch (Throwable t) {
 			logger.error("Failure during static initialization", t);
 			throw t;
 		}
 
 	}
-	
-	
+
+
 	private ChromeDriverCreator()  {}
-	
+
 	/**
-	 * Get a pointer to the active WebDriver. If non exists, it creates one.
-	 * 
-	 * @return
+	 * Makes chrome render only what is needed to find the markup of a page: the
+	 * DOM and its scripts. Images, fonts, stylesheets and media are not loaded,
+	 * the given hosts are never contacted and the page is handed over once its
+	 * DOM is ready rather than once every resource has loaded.
+	 *
+	 * Selenium 3 cannot intercept requests, so resources are blocked through
+	 * chrome switches and content settings and hosts through the host resolver.
+	 *
+	 * @param options      Options to add the profile to
+	 * @param blockedHosts Hosts to block; "*." blocks the domain and its sub
+	 *                     domains
 	 */
-	public static synchronized WebDriver getInstance() {
-		if(driver == null) {
-			synchronized (ChromeDriverCreator.class) {				
-				if(driver == null) {
-					logger.info("starting a new chrome driver");
-					driver = new ChromeDriver(chromeOptions);					
-				}
+	static void applyFastRenderProfile(ChromeOptions options, List<String> blockedHosts) {
+		options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+		options.addArguments("--blink-settings=imagesEnabled=false", "--disable-remote-fonts", "--mute-audio",
+				"--autoplay-policy=user-gesture-required", "--disable-extensions");
+
+		if (!blockedHosts.isEmpty()) {
+			StringJoiner rules = new StringJoiner(", ");
+			for (String host : blockedHosts) {
+				// chrome's *. matches sub domains only, not the domain itself
+				if (host.startsWith("*."))
+					rules.add("MAP " + host.substring(2) + " ~NOTFOUND");
+				rules.add("MAP " + host + " ~NOTFOUND");
 			}
+			options.addArguments("--host-resolver-rules=" + rules);
 		}
-		return driver;
+
+		// 2 = block
+		Map<String, Object> prefs = new HashMap<String, Object>();
+		prefs.put("profile.managed_default_content_settings.images", 2);
+		prefs.put("profile.managed_default_content_settings.stylesheets", 2);
+		prefs.put("profile.managed_default_content_settings.media_stream", 2);
+		prefs.put("profile.managed_default_content_settings.plugins", 2);
+		prefs.put("profile.managed_default_content_settings.notifications", 2);
+		options.setExperimentalOption("prefs", prefs);
 	}
-	
+
 	/**
-	 * Use only to recover from {@link NoSuchSessionException}
-	 * To properly shutdown use close() or quit() on the {@link WebDriver}
-	 * close() shuts the current page; quit() closes then exits the driver.
-	 * 
-	 * This method provides a more extreme close and reopen.
-	 * 
+	 * Starts a new headless chrome driver. Callers are responsible for quitting
+	 * it; normally this is only called by {@link ChromeDriverPool}.
+	 *
 	 * @return New WebDriver
 	 */
-	public static synchronized WebDriver killAndReopen() {
-		driver = null;
-		return getInstance();
+	public static WebDriver createDriver() {
+		logger.info("starting a new chrome driver");
+		return new ChromeDriver(chromeOptions);
 	}
 }
@@ -0,0 +1,296 @@
+package hwu.elixir.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of headless chrome drivers. Replaces the single driver that
+ * used to be shared by every scraper, so that several pages can be rendered at
+ * once.
+ *
+ * A driver is obtained with {@link #borrow()} and must always be handed back
+ * with either {@link #release(WebDriver)} (driver still usable) or
+ * {@link #invalidate(WebDriver)} (driver crashed). Idle drivers are health
+ * checked before being handed out again; dead sessions are evicted and a new
+ * driver is started in their place.
+ *
+ * Chrome grows over time, so a driver is also recycled (quit, to be replaced
+ * on demand) when it is released after rendering
+ * <i>chromeRecycleAfterPages</i> pages, or once its processes use more than
+ * <i>chromeMaxRssMb</i> of memory (Linux only, and only if exactly one new
+ * chromedriver process appeared when the driver was started, so that it is
+ * known to be that driver's). Recycling only happens between
+ * pages, never whilst a page is being rendered.
+ *
+ * The maximum number of drivers is read from property
+ * <i>chromeDriverPoolSize</i>. Drivers are only started when first needed.
+ *
+ * Based on singleton pattern.
+ *
+ * @see ChromeDriverCreator
+ */
+public class ChromeDriverPool {
+
+	private static ChromeDriverPool pool = null;
+	private static Logger logger = LoggerFactory.getLogger(ChromeDriverPool.class.getName());
+
+	private final int maxSize;
+	private final int recycleAfterPages;
+	private final long maxRssKb;
+	private final Supplier<WebDriver> factory;
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<WebDriver> idle = new LinkedBlockingDeque<>();
+	// every live driver; see shutdown() for the generation
+	private final Map<WebDriver, PooledDriver> drivers = new ConcurrentHashMap<>();
+	private volatile int generation = 0;
+
+	private final AtomicLong recycled = new AtomicLong();
+	private final AtomicLong crashed = new AtomicLong();
+
+	private static class PooledDriver {
+		private final int generation;
+		private final ProcessHandle process; // chromedriver; null if not found
+		private int pages = 0; // only changed by the borrower
+
+		private PooledDriver(int generation, ProcessHandle process) {
+			this.generation = generation;
+			this.process = process;
+		}
+	}
+
+	/**
+	 * @param maxSize           Maximum number of drivers
+	 * @param recycleAfterPages Pages after which a driver is recycled; 0 for never
+	 * @param maxRssMb          Memory after which a driver is recycled; 0 for no
+	 *                          limit
+	 * @param factory           Starts a new driver
+	 */
+	ChromeDriverPool(int maxSize, int recycleAfterPages, long maxRssMb, Supplier<WebDriver> factory) {
+		this.maxSize = Math.max(1, maxSize);
+		this.recycleAfterPages = Math.max(0, recycleAfterPages);
+		this.maxRssKb = Math.max(0, maxRssMb) * 1024;
+		this.factory = factory;
+		this.permits = new Semaphore(this.maxSize, true);
+	}
+
+	/**
+	 * Get the pool of drivers. If none exists, it creates one sized according to
+	 * the properties file.
+	 *
+	 * @return
+	 */
+	public static synchronized ChromeDriverPool getInstance() {
+		if (pool == null) {
+			ScraperProperties properties = ScraperProperties.getInstance();
+			pool = new ChromeDriverPool(properties.getChromeDriverPoolSize(), properties.getChromeRecycleAfterPages(),
+					properties.getChromeMaxRssMb(), ChromeDriverCreator::createDriver);
+			logger.info("chrome driver pool created; max size " + pool.maxSize);
+		}
+		return pool;
+	}
+
+	/**
+	 * Takes a driver from the pool, blocking until one is available. Idle drivers
+	 * which fail the health check are quit and replaced by a new driver.
+	 *
+	 * @return A healthy WebDriver for the sole use of the caller
+	 * @throws WebDriverException if interrupted whilst waiting for a driver
+	 */
+	public WebDriver borrow() {
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WebDriverException("Interrupted whilst waiting for a chrome driver");
+		}
+
+		try {
+			WebDriver driver;
+			while ((driver = idle.pollFirst()) != null) {
+				if (isHealthy(driver))
+					return driver;
+
+				logger.warn("evicting chrome driver that failed health check");
+				crashed.incrementAndGet();
+				quitQuietly(driver);
+			}
+			return startDriver();
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns a driver to the pool once the caller has finished with it. The
+	 * driver is quit instead if it is due to be recycled.
+	 *
+	 * @param driver A driver obtained from {@link #borrow()}
+	 */
+	public void release(WebDriver driver) {
+		if (driver == null)
+			return;
+
+		PooledDriver pooled = drivers.get(driver);
+		if (pooled == null || pooled.generation != generation) {
+			quitQuietly(driver);
+		} else if (isDueForRecycling(pooled)) {
+			recycled.incrementAndGet();
+			quitQuietly(driver);
+		} else {
+			idle.offerFirst(driver);
+		}
+		permits.release();
+	}
+
+	/**
+	 * Quits a driver that has crashed and frees its place in the pool.
+	 *
+	 * @param driver A driver obtained from {@link #borrow()}
+	 */
+	public void invalidate(WebDriver driver) {
+		crashed.incrementAndGet();
+		if (driver != null)
+			quitQuietly(driver);
+		permits.release();
+	}
+
+	/**
+	 * Use only to recover from {@link NoSuchSessionException}. Quits the given
+	 * (borrowed) driver and replaces it with a new one; the caller keeps its place
+	 * in the pool and must still release the returned driver.
+	 *
+	 * @param driver The driver to kill
+	 * @return New WebDriver
+	 */
+	public WebDriver killAndReopen(WebDriver driver) {
+		crashed.incrementAndGet();
+		if (driver != null)
+			quitQuietly(driver);
+		return startDriver();
+	}
+
+	/**
+	 * Quits every idle driver. Drivers that are currently borrowed will be quit
+	 * when they are released. The pool can still be used afterwards; new drivers
+	 * are started on demand.
+	 */
+	public void shutdown() {
+		generation++;
+		if (drivers.isEmpty()) {
+			logger.info("No chrome drivers running... no need to close.");
+			return;
+		}
+
+		logger.info("Closing idle chrome drivers... (" + recycled.get() + " recycled and " + crashed.get()
+				+ " crashed so far)");
+		WebDriver driver;
+		while ((driver = idle.pollFirst()) != null) {
+			quitQuietly(driver);
+		}
+		logger.info("Idle chrome drivers closed.");
+	}
+
+	/**
+	 * @return Number of drivers currently running, whether idle or borrowed
+	 */
+	public int size() {
+		return drivers.size();
+	}
+
+	/**
+	 * @return Number of drivers quit because they had rendered too many pages or
+	 *         used too much memory
+	 */
+	public long getRecycleCount() {
+		return recycled.get();
+	}
+
+	/**
+	 * @return Number of drivers found dead, whether during a scrape or by the
+	 *         health check
+	 */
+	public long getCrashCount() {
+		return crashed.get();
+	}
+
+	/**
+	 * Counts the page just rendered by the driver and checks its limits.
+	 *
+	 * @param pooled
+	 * @return true if the driver should be quit rather than reused
+	 */
+	private boolean isDueForRecycling(PooledDriver pooled) {
+		pooled.pages++;
+		if (recycleAfterPages > 0 && pooled.pages >= recycleAfterPages) {
+			logger.info("recycling chrome driver after " + pooled.pages + " pages");
+			return true;
+		}
+
+		if (maxRssKb > 0 && pooled.process != null) {
+			long rss = ProcessMemory.rssKb(pooled.process);
+			if (rss > maxRssKb) {
+				logger.info("recycling chrome driver using " + rss / 1024 + "MB after " + pooled.pages + " pages");
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A driver is healthy if its session still answers a basic command.
+	 *
+	 * @param driver
+	 * @return true if the driver can still be used
+	 */
+	private boolean isHealthy(WebDriver driver) {
+		try {
+			driver.getWindowHandle();
+			return true;
+		} catch (WebDriverException e) {
+			return false;
+		}
+	}
+
+	private WebDriver startDriver() {
+		WebDriver driver;
+		ProcessHandle process;
+		// one at a time, so that the new chromedriver process can be told apart
+		synchronized (this) {
+			Set<Long> before = ProcessHandle.current().children().map(ProcessHandle::pid).collect(Collectors.toSet());
+			driver = factory.get();
+			List<ProcessHandle> started = ProcessHandle.current().children()
+					.filter(p -> !before.contains(p.pid()))
+					.filter(p -> p.info().command().map(c -> c.contains("chromedriver")).orElse(false))
+					.collect(Collectors.toList());
+			// without a single chromedriver to watch, the driver is recycled by page count only
+			process = started.size() == 1 ? started.get(0) : null;
+			if (process == null && maxRssKb > 0)
+				logger.warn(started.size() + " new chromedriver processes found; memory of this driver not watched");
+		}
+		drivers.put(driver, new PooledDriver(generation, process));
+		return driver;
+	}
+
+	private void quitQuietly(WebDriver driver) {
+		drivers.remove(driver);
+		try {
+			driver.quit();
+		} catch (WebDriverException e) {
+			logger.debug("chrome driver already gone: " + e.getMessage());
+		}
+	}
+}
@@ -74,9 +74,19 @@ public class Helpers {
 	 * @return
 	 */
 	public static XMLGregorianCalendar getFullDateWithTime() {
+		return getFullDateWithTime(new Date());
+	}
+
+	/**
+	 * Formats the given date as yyyy-MM-dd'T'HH:mm:ss.
+	 * 
+	 * @param date
+	 * @return
+	 */
+	public static XMLGregorianCalendar getFullDateWithTime(Date date) {
 		try {
 			return DatatypeFactory.newInstance()
-					.newXMLGregorianCalendar(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date()));
+					.newXMLGregorianCalendar(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(date));
 		} catch (DatatypeConfigurationException e) {			
 			e.printStackTrace();
 		}
@@ -0,0 +1,131 @@
+package hwu.elixir.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.eclipse.rdf4j.model.IRI;
+
+/**
+ * Remembers the IRI a normalisation gives for each raw IRI string, so that the
+ * few hundred predicates and types seen over and over are only normalised once
+ * and share a single IRI instance. A hit looks up one or two maps and
+ * allocates nothing.
+ *
+ * Bounded by keeping two generations of entries: new entries go into the
+ * current one and, when it is half full, it becomes the previous generation
+ * and what was there before is dropped. Entries found in the previous
+ * generation are moved back to the current one, so what is used often stays
+ * while one-off IRIs (e.g., of individual records) are soon forgotten.
+ *
+ * Safe to share between threads; the normalisation may now and then run twice
+ * for the same string, so it must not have side effects.
+ */
+public class IriCache {
+
+	private final int generationSize;
+	private final Function<String, IRI> normalise;
+
+	private volatile Map<String, IRI> current;
+	private volatile Map<String, IRI> previous;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxSize   Most entries kept; 0 or less to cache nothing
+	 * @param normalise Gives the IRI for a raw IRI string
+	 */
+	public IriCache(int maxSize, Function<String, IRI> normalise) {
+		this.generationSize = Math.max(0, maxSize / 2);
+		this.normalise = normalise;
+		this.current = new ConcurrentHashMap<>();
+		this.previous = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @param raw A raw IRI string
+	 * @return The normalised IRI, from the cache if it was seen recently
+	 */
+	public IRI get(String raw) {
+		IRI iri = current.get(raw);
+		if (iri != null) {
+			hits.increment();
+			return iri;
+		}
+
+		iri = previous.get(raw);
+		if (iri != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+			iri = normalise.apply(raw);
+		}
+		put(raw, iri);
+		return iri;
+	}
+
+	private void put(String raw, IRI iri) {
+		if (generationSize == 0)
+			return;
+
+		Map<String, IRI> map = current;
+		if (map.size() >= generationSize) {
+			synchronized (this) {
+				if (current == map) {
+					evictions.add(previous.size());
+					previous = map;
+					current = map = new ConcurrentHashMap<>();
+				} else {
+					map = current;
+				}
+			}
+		}
+		map.put(raw, iri);
+	}
+
+	/**
+	 * @return Lookups answered from the cache
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Lookups that needed the normalisation
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return Entries dropped to keep within the size
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return Fraction of lookups answered from the cache; 0 if there were none
+	 */
+	public double getHitRate() {
+		long hit = hits.sum();
+		long total = hit + misses.sum();
+		return total == 0 ? 0 : (double) hit / total;
+	}
+
+	/**
+	 * @return Number of entries currently kept
+	 */
+	public int size() {
+		return current.size() + previous.size();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d hits, %d misses (hit rate %.1f%%), %d entries, %d evicted", getHits(), getMisses(),
+				100 * getHitRate(), size(), getEvictions());
+	}
+}
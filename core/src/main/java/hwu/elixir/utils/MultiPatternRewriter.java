@@ -0,0 +1,177 @@
+package hwu.elixir.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Replaces several literal strings in one pass over the text, using an
+ * Aho-Corasick automaton built once. Gives the same result as chaining
+ * {@code replace} calls for each pattern, but reads the text once and only
+ * copies it when something is replaced.
+ *
+ * For that to hold, no pattern may occur inside another, nor may the end of
+ * one pattern be the start of another; the constructor refuses such patterns.
+ *
+ * Instances are immutable and can be shared between threads.
+ */
+public class MultiPatternRewriter {
+
+	private final String[] patterns;
+	private final String[] replacements;
+
+	// alphabet: characters found in the patterns; others always lead back to the root
+	private final int[] charIndex;
+	private final int alphabetSize;
+
+	// complete transition table: next state = delta[state * alphabetSize + charIndex]
+	private final int[] delta;
+	// pattern ending in each state, or -1
+	private final int[] output;
+
+	/**
+	 * @param replacements Pattern to replacement; patterns must not be empty
+	 * @throws IllegalArgumentException if patterns overlap each other
+	 */
+	public MultiPatternRewriter(Map<String, String> replacements) {
+		this.patterns = replacements.keySet().toArray(new String[0]);
+		this.replacements = replacements.values().toArray(new String[0]);
+		checkPatterns(patterns);
+
+		int maxChar = 0;
+		for (String pattern : patterns) {
+			for (char c : pattern.toCharArray())
+				maxChar = Math.max(maxChar, c);
+		}
+		charIndex = new int[maxChar + 1];
+		Arrays.fill(charIndex, -1);
+		int size = 0;
+		for (String pattern : patterns) {
+			for (char c : pattern.toCharArray()) {
+				if (charIndex[c] < 0)
+					charIndex[c] = size++;
+			}
+		}
+		alphabetSize = size;
+
+		// trie
+		List<int[]> trie = new ArrayList<>();
+		List<Integer> ends = new ArrayList<>();
+		trie.add(newRow());
+		ends.add(-1);
+		for (int p = 0; p < patterns.length; p++) {
+			int state = 0;
+			for (char c : patterns[p].toCharArray()) {
+				int next = trie.get(state)[charIndex[c]];
+				if (next < 0) {
+					next = trie.size();
+					trie.get(state)[charIndex[c]] = next;
+					trie.add(newRow());
+					ends.add(-1);
+				}
+				state = next;
+			}
+			ends.set(state, p);
+		}
+
+		// failure links turn the trie into a complete automaton, breadth first
+		int states = trie.size();
+		delta = new int[states * alphabetSize];
+		output = new int[states];
+		int[] failure = new int[states];
+		Queue<Integer> queue = new LinkedList<>();
+		for (int c = 0; c < alphabetSize; c++) {
+			int next = trie.get(0)[c];
+			delta[c] = Math.max(0, next);
+			if (next > 0)
+				queue.add(next);
+		}
+		output[0] = -1;
+		while (!queue.isEmpty()) {
+			int state = queue.remove();
+			output[state] = ends.get(state);
+			for (int c = 0; c < alphabetSize; c++) {
+				int next = trie.get(state)[c];
+				if (next < 0) {
+					delta[state * alphabetSize + c] = delta[failure[state] * alphabetSize + c];
+				} else {
+					failure[next] = delta[failure[state] * alphabetSize + c];
+					delta[state * alphabetSize + c] = next;
+					queue.add(next);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param text
+	 * @return The text with every pattern replaced; the same instance if no pattern
+	 *         occurs
+	 */
+	public String rewrite(String text) {
+		if (text == null || patterns.length == 0)
+			return text;
+
+		StringBuilder result = null;
+		int copied = 0;
+		int state = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			int index = c < charIndex.length ? charIndex[c] : -1;
+			state = index < 0 ? 0 : delta[state * alphabetSize + index];
+
+			int match = output[state];
+			if (match >= 0) {
+				if (result == null)
+					result = new StringBuilder(text.length() + 16);
+				int start = i + 1 - patterns[match].length();
+				result.append(text, copied, start).append(replacements[match]);
+				copied = i + 1;
+				state = 0;
+			}
+		}
+		if (result == null)
+			return text;
+		return result.append(text, copied, text.length()).toString();
+	}
+
+	/**
+	 * @return A rewriter that undoes this one, i.e., replaces each replacement
+	 *         with its pattern
+	 * @throws IllegalArgumentException if the replacements overlap each other
+	 */
+	public MultiPatternRewriter reverse() {
+		Map<String, String> reversed = new LinkedHashMap<>();
+		for (int p = 0; p < patterns.length; p++) {
+			reversed.put(replacements[p], patterns[p]);
+		}
+		return new MultiPatternRewriter(reversed);
+	}
+
+	private int[] newRow() {
+		int[] row = new int[alphabetSize];
+		Arrays.fill(row, -1);
+		return row;
+	}
+
+	private static void checkPatterns(String[] patterns) {
+		for (String a : patterns) {
+			if (a.isEmpty())
+				throw new IllegalArgumentException("empty pattern");
+			for (String b : patterns) {
+				if (a == b)
+					continue;
+				if (a.contains(b))
+					throw new IllegalArgumentException("pattern " + b + " occurs in " + a);
+				for (int length = 1; length < Math.min(a.length(), b.length()); length++) {
+					if (a.endsWith(b.substring(0, length)))
+						throw new IllegalArgumentException("patterns " + a + " and " + b + " overlap");
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package hwu.elixir.utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.FluentWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides when a page rendered by Selenium is ready to be scraped. Waiting
+ * stops as soon as any of the following happens:
+ * <ol>
+ * <li>a JSON-LD script is present,</li>
+ * <li>RDFa attributes (vocab or typeof) are present,</li>
+ * <li>the DOM has not changed for <i>domQuietMillis</i>, or</li>
+ * <li>the budget for the host runs out.</li>
+ * </ol>
+ * The budget of a host is learned from how long its pages took to become
+ * ready: a multiple of the moving average of those times, never more than
+ * <i>renderMaxWait</i>. Hosts not seen yet get the maximum. A page that runs
+ * out of budget counts as having taken the whole budget, so a host that has
+ * become slower earns a longer budget again.
+ *
+ * DOM changes are tracked by a MutationObserver installed in the page on the
+ * first poll.
+ *
+ * Based on singleton pattern.
+ */
+public class PageReadiness {
+
+	public enum Reason {
+		JSONLD, RDFA, DOM_QUIET, BUDGET_EXHAUSTED
+	}
+
+	static final long MIN_BUDGET = 2000;
+	static final double BUDGET_MULTIPLIER = 3.0;
+	static final double EWMA_WEIGHT = 0.3; // weight of the newest render time
+	private static final long POLL_INTERVAL = 100;
+
+	// installs the observer on first call (and after a navigation) then reports readiness
+	private static final String POLL_SCRIPT = "var quiet = arguments[0];"
+			+ "if (window.__bmuseLastMutation === undefined) {"
+			+ "  window.__bmuseLastMutation = Date.now();"
+			+ "  new MutationObserver(function() { window.__bmuseLastMutation = Date.now(); })"
+			+ "    .observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+			+ "}"
+			+ "if (document.querySelector('script[type=\"application/ld+json\"]')) return 'JSONLD';"
+			+ "if (document.querySelector('[vocab],[typeof]')) return 'RDFA';"
+			+ "if (Date.now() - window.__bmuseLastMutation >= quiet) return 'DOM_QUIET';"
+			+ "return null;";
+
+	private static PageReadiness readiness = null;
+	private static Logger logger = LoggerFactory.getLogger(PageReadiness.class.getName());
+
+	private final long domQuietMillis;
+	private final long maxWaitMillis;
+	private final Map<String, Double> averageReadyMillis = new ConcurrentHashMap<>();
+
+	/**
+	 * @param domQuietMillis How long the DOM must not change for the page to be
+	 *                       ready
+	 * @param maxWaitMillis  Longest time ever waited for a page
+	 */
+	PageReadiness(long domQuietMillis, long maxWaitMillis) {
+		this.domQuietMillis = domQuietMillis;
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/**
+	 * Get the readiness strategy. If none exists, it creates one using properties
+	 * <i>domQuietMillis</i> and <i>renderMaxWait</i>.
+	 *
+	 * @return
+	 */
+	public static synchronized PageReadiness getInstance() {
+		if (readiness == null) {
+			ScraperProperties properties = ScraperProperties.getInstance();
+			readiness = new PageReadiness(properties.getDomQuietMillis(), properties.getRenderMaxWait());
+		}
+		return readiness;
+	}
+
+	/**
+	 * Waits until the page loaded in the driver is ready to be scraped.
+	 *
+	 * @param driver    Driver that has just loaded the page
+	 * @param url       The page; used to find its host's budget
+	 * @param startedAt When loading of the page started (System.currentTimeMillis)
+	 * @return Why waiting stopped
+	 */
+	public Reason awaitReady(WebDriver driver, String url, long startedAt) {
+		long budget = budgetFor(url);
+		long remaining = budget - (System.currentTimeMillis() - startedAt);
+
+		Reason reason;
+		try {
+			String result = new FluentWait<WebDriver>(driver)
+					.withTimeout(Duration.ofMillis(Math.max(POLL_INTERVAL, remaining)))
+					.pollingEvery(Duration.ofMillis(POLL_INTERVAL))
+					.until(d -> (String) ((JavascriptExecutor) d).executeScript(POLL_SCRIPT, domQuietMillis));
+			reason = Reason.valueOf(result);
+		} catch (TimeoutException e) {
+			reason = Reason.BUDGET_EXHAUSTED;
+		}
+
+		long took = System.currentTimeMillis() - startedAt;
+		if (reason == Reason.BUDGET_EXHAUSTED)
+			recordTimeout(url);
+		else
+			recordReadyTime(url, took);
+		logger.debug(url + " ready after " + took + "ms (" + reason + "; budget " + budget + "ms)");
+		return reason;
+	}
+
+	/**
+	 * @param url
+	 * @return Longest time to wait for a page of this host, in milliseconds
+	 */
+	long budgetFor(String url) {
+		Double average = averageReadyMillis.get(PolitenessScheduler.getHost(url));
+		if (average == null)
+			return maxWaitMillis;
+		long budget = Math.max(MIN_BUDGET, Math.round(average * BUDGET_MULTIPLIER));
+		return Math.min(maxWaitMillis, budget);
+	}
+
+	/**
+	 * Adds the time a page of the host took to become ready to the moving average
+	 * of the host.
+	 *
+	 * @param url
+	 * @param millis
+	 */
+	void recordReadyTime(String url, long millis) {
+		averageReadyMillis.merge(PolitenessScheduler.getHost(url), (double) millis,
+				(average, latest) -> average + EWMA_WEIGHT * (latest - average));
+	}
+
+	/**
+	 * Adds a page of the host that ran out of budget to the moving average of the
+	 * host, as if it had become ready when the budget ran out. Repeated timeouts
+	 * raise the budget until it reaches <i>renderMaxWait</i>.
+	 *
+	 * @param url
+	 */
+	void recordTimeout(String url) {
+		recordReadyTime(url, budgetFor(url));
+	}
+}
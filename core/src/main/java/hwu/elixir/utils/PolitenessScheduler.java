@@ -0,0 +1,285 @@
+package hwu.elixir.utils;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs scraping tasks on a fixed number of workers whilst being polite to each
+ * host. Tasks are queued per host; a host is only given work when:
+ * <ol>
+ * <li>fewer than <i>maxInFlightPerHost</i> of its tasks are running, and</li>
+ * <li>at least <i>minDelayMillis</i> have passed since its last task
+ * started.</li>
+ * </ol>
+ * A worker that finds its current host is not ready takes ready work from any
+ * other host instead of waiting, so a slow or rate limited host does not hold
+ * up the whole crawl.
+ *
+ * Usage: {@link #submit(String, Runnable)} every task, then
+ * {@link #run(int)}, which returns once all tasks have finished or
+ * {@link #cancel()} was called and those running have finished.
+ */
+public class PolitenessScheduler {
+
+	private static Logger logger = LoggerFactory.getLogger(PolitenessScheduler.class.getName());
+
+	private final long minDelayMillis;
+	private final int maxInFlightPerHost;
+
+	// guarded by this; insertion order gives round robin between hosts
+	private final Map<String, HostQueue> hosts = new LinkedHashMap<>();
+	private int pending = 0;
+	private int running = 0;
+
+	private static class HostQueue {
+		private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+		private int inFlight = 0;
+		// asynchronous requests; see acquire
+		private int asyncInFlight = 0;
+		private long nextStart = 0;
+	}
+
+	/**
+	 * @param minDelayMillis     Minimum time between the start of two tasks for
+	 *                           the same host
+	 * @param maxInFlightPerHost Maximum number of tasks running at once for the
+	 *                           same host
+	 */
+	public PolitenessScheduler(long minDelayMillis, int maxInFlightPerHost) {
+		this.minDelayMillis = Math.max(0, minDelayMillis);
+		this.maxInFlightPerHost = Math.max(1, maxInFlightPerHost);
+	}
+
+	/**
+	 * Creates a scheduler using properties <i>hostCrawlDelay</i> and
+	 * <i>hostMaxConcurrency</i>.
+	 *
+	 * @param properties
+	 */
+	public PolitenessScheduler(ScraperProperties properties) {
+		this(properties.getHostCrawlDelay(), properties.getHostMaxConcurrency());
+	}
+
+	/**
+	 * Queues a task against the host of the given URL.
+	 *
+	 * @param url  URL the task will fetch; only the host is used
+	 * @param task The work to do
+	 */
+	public synchronized void submit(String url, Runnable task) {
+		hosts.computeIfAbsent(getHost(url), h -> new HostQueue()).tasks.add(task);
+		pending++;
+		notifyAll();
+	}
+
+	/**
+	 * Runs all submitted tasks on the given number of workers and waits for them
+	 * to finish. An exception thrown by a task is logged and does not affect the
+	 * other tasks.
+	 *
+	 * @param workers Number of worker threads
+	 */
+	public void run(int workers) {
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < Math.max(1, workers); i++) {
+			Thread worker = new Thread(this::workLoop, "scraper-worker-" + i);
+			threads.add(worker);
+			worker.start();
+		}
+
+		for (Thread worker : threads) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				logger.error("Interrupted whilst waiting for workers to finish");
+				threads.forEach(Thread::interrupt);
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Drops the tasks that have not started, so that {@link #run(int)} returns
+	 * once those running have finished. May be called from a task.
+	 *
+	 * @return Number of tasks dropped
+	 */
+	public synchronized int cancel() {
+		int dropped = pending;
+		for (HostQueue queue : hosts.values()) {
+			queue.tasks.clear();
+		}
+		pending = 0;
+		notifyAll();
+		if (dropped > 0)
+			logger.info(dropped + " scraping tasks cancelled");
+		return dropped;
+	}
+
+	/**
+	 * Waits until the host of the given URL may be contacted again and records a
+	 * new request start. For work that fetches several pages of one host in a
+	 * single task, e.g., a sitemap, so that the delay also applies between those
+	 * pages. Does not count towards the in-flight limit.
+	 *
+	 * @param url URL about to be fetched
+	 * @throws InterruptedException
+	 */
+	public void pace(String url) throws InterruptedException {
+		long wait = reserve(url);
+		if (wait > 0)
+			Thread.sleep(wait);
+	}
+
+	/**
+	 * Books the next slot at which the host of the given URL may be contacted,
+	 * without waiting for it. For asynchronous fetches which delay the request
+	 * themselves. Does not count towards the in-flight limit.
+	 *
+	 * @param url URL about to be fetched
+	 * @return Milliseconds until the request may be sent
+	 */
+	public synchronized long reserve(String url) {
+		HostQueue queue = hosts.computeIfAbsent(getHost(url), h -> new HostQueue());
+		long now = System.currentTimeMillis();
+		long start = Math.max(now, queue.nextStart);
+		queue.nextStart = start + minDelayMillis;
+		return start - now;
+	}
+
+	/**
+	 * Waits until fewer than <i>maxInFlightPerHost</i> asynchronous requests to
+	 * the host of the given URL are outstanding, then counts one more; it must be
+	 * given back with {@link #release(String)} once the request is done. For
+	 * asynchronous fetches, which are counted apart from the tasks given to
+	 * {@link #run(int)}, as such a task may hand several requests to its host
+	 * over, e.g., those of a sitemap.
+	 *
+	 * @param url URL about to be fetched
+	 * @throws InterruptedException
+	 */
+	public synchronized void acquire(String url) throws InterruptedException {
+		HostQueue queue = hosts.computeIfAbsent(getHost(url), h -> new HostQueue());
+		while (queue.asyncInFlight >= maxInFlightPerHost) {
+			wait();
+		}
+		queue.asyncInFlight++;
+	}
+
+	/**
+	 * Gives back a request counted by {@link #acquire(String)}.
+	 *
+	 * @param url URL fetched
+	 */
+	public synchronized void release(String url) {
+		HostQueue queue = hosts.get(getHost(url));
+		if (queue != null && queue.asyncInFlight > 0)
+			queue.asyncInFlight--;
+		notifyAll();
+	}
+
+	private void workLoop() {
+		while (true) {
+			String host;
+			Runnable task;
+			synchronized (this) {
+				try {
+					host = awaitReadyHost();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				if (host == null)
+					return;
+
+				HostQueue queue = hosts.get(host);
+				task = queue.tasks.poll();
+				queue.inFlight++;
+				queue.nextStart = Math.max(queue.nextStart, System.currentTimeMillis()) + minDelayMillis;
+				pending--;
+				running++;
+			}
+
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				logger.error("Task for host " + host + " failed", e);
+			} finally {
+				synchronized (this) {
+					hosts.get(host).inFlight--;
+					running--;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Blocks until a host has a task that may be started now. Must hold the
+	 * monitor.
+	 *
+	 * @return the host, or null once there is no work left
+	 * @throws InterruptedException
+	 */
+	private String awaitReadyHost() throws InterruptedException {
+		while (true) {
+			if (pending == 0) {
+				if (running == 0) {
+					notifyAll();
+					return null;
+				}
+				wait();
+				continue;
+			}
+
+			long now = System.currentTimeMillis();
+			long earliest = Long.MAX_VALUE;
+			String ready = null;
+			for (Map.Entry<String, HostQueue> entry : hosts.entrySet()) {
+				HostQueue queue = entry.getValue();
+				if (queue.tasks.isEmpty() || queue.inFlight >= maxInFlightPerHost)
+					continue;
+				if (queue.nextStart <= now) {
+					ready = entry.getKey();
+					break;
+				}
+				earliest = Math.min(earliest, queue.nextStart);
+			}
+
+			if (ready != null) {
+				// move to the back so other hosts get the next turn
+				hosts.put(ready, hosts.remove(ready));
+				return ready;
+			}
+
+			if (earliest == Long.MAX_VALUE) {
+				wait(); // every host with work is at its concurrency limit
+			} else {
+				wait(Math.max(1, earliest - now));
+			}
+		}
+	}
+
+	/**
+	 * @param url
+	 * @return lower case host of the URL, or the URL itself if it cannot be parsed
+	 */
+	public static String getHost(String url) {
+		try {
+			String host = new URI(url.trim()).getHost();
+			if (host != null)
+				return host.toLowerCase();
+		} catch (Exception e) {
+			logger.debug("Cannot find host of " + url);
+		}
+		return url;
+	}
+}
@@ -0,0 +1,136 @@
+package hwu.elixir.utils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Tells whether a string starts with, or contains, any of a set of patterns,
+ * using a trie built once. A lookup reads the string once for the patterns it
+ * must start with, and from each position for the patterns it may contain
+ * anywhere; it stops at the first match and allocates nothing.
+ *
+ * Patterns are added with {@link #add(String, boolean)}; lookups may begin once
+ * {@link #build()} is called, after which the trie cannot be changed and can be
+ * shared between threads.
+ */
+public class PrefixTrie {
+
+	private static class Node {
+		// children, by the character leading to them, sorted; filled by build()
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private boolean terminal = false;
+
+		private Map<Character, Node> building = new TreeMap<>();
+
+		private Node child(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i < 0 ? null : children[i];
+		}
+
+		private void build() {
+			keys = new char[building.size()];
+			children = new Node[building.size()];
+			int i = 0;
+			for (Map.Entry<Character, Node> entry : building.entrySet()) {
+				keys[i] = entry.getKey();
+				children[i] = entry.getValue();
+				children[i].build();
+				i++;
+			}
+			building = null;
+		}
+	}
+
+	// patterns a string must start with, and patterns it may contain anywhere
+	private final Node anchored = new Node();
+	private final Node anywhere = new Node();
+	private int size = 0;
+	private boolean built = false;
+
+	/**
+	 * @param pattern  Must not be empty
+	 * @param anywhere true if the pattern may occur anywhere in the string, false
+	 *                 if the string must start with it
+	 * @return this
+	 * @throws IllegalArgumentException if the pattern is empty
+	 * @throws IllegalStateException    if the trie has been built
+	 */
+	public PrefixTrie add(String pattern, boolean anywhere) {
+		if (built)
+			throw new IllegalStateException("Trie already built");
+		if (pattern.isEmpty())
+			throw new IllegalArgumentException("Empty pattern");
+
+		Node node = anywhere ? this.anywhere : anchored;
+		for (int i = 0; i < pattern.length(); i++) {
+			node = node.building.computeIfAbsent(pattern.charAt(i), c -> new Node());
+		}
+		if (!node.terminal)
+			size++;
+		node.terminal = true;
+		return this;
+	}
+
+	/**
+	 * Readies the trie for lookups.
+	 *
+	 * @return this
+	 */
+	public PrefixTrie build() {
+		if (!built) {
+			anchored.build();
+			anywhere.build();
+			built = true;
+		}
+		return this;
+	}
+
+	/**
+	 * @return Number of distinct patterns
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if there are no patterns
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param text
+	 * @return true if the text starts with an anchored pattern, or contains a
+	 *         pattern that may occur anywhere
+	 * @throws IllegalStateException if the trie has not been built
+	 */
+	public boolean matches(String text) {
+		if (!built)
+			throw new IllegalStateException("Trie not built");
+
+		if (startsWith(anchored, text, 0))
+			return true;
+		if (anywhere.keys.length == 0)
+			return false;
+		for (int start = 0; start < text.length(); start++) {
+			if (startsWith(anywhere, text, start))
+				return true;
+		}
+		return false;
+	}
+
+	private static boolean startsWith(Node root, String text, int start) {
+		Node node = root;
+		for (int i = start; i < text.length(); i++) {
+			node = node.child(text.charAt(i));
+			if (node == null)
+				return false;
+			if (node.terminal)
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,51 @@
+package hwu.elixir.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+
+/**
+ * Reads the resident memory of a process tree, e.g., a chromedriver with the
+ * chrome browser and renderer processes it started. Relies on /proc, so only
+ * works on Linux; elsewhere the memory is reported as unknown.
+ */
+public class ProcessMemory {
+
+	private ProcessMemory() {
+	}
+
+	/**
+	 * @param process Root of the process tree
+	 * @return Resident memory of the process and all its descendants in KB, or -1
+	 *         if it cannot be read
+	 */
+	public static long rssKb(ProcessHandle process) {
+		long own = rssKb(process.pid());
+		if (own < 0)
+			return -1;
+
+		long total = own;
+		Iterator<ProcessHandle> descendants = process.descendants().iterator();
+		while (descendants.hasNext()) {
+			// a process may exit whilst being read; it then no longer counts
+			total += Math.max(0, rssKb(descendants.next().pid()));
+		}
+		return total;
+	}
+
+	private static long rssKb(long pid) {
+		Path status = Paths.get("/proc", Long.toString(pid), "status");
+		try {
+			for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+				if (line.startsWith("VmRSS:"))
+					return Long.parseLong(line.substring(6).replace("kB", "").trim());
+			}
+			return 0; // kernel threads and zombies have no VmRSS
+		} catch (IOException | NumberFormatException e) {
+			return -1;
+		}
+	}
+}
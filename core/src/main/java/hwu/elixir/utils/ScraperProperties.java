@@ -7,10 +7,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 
 import hwu.elixir.scrape.scraper.ScraperCore;
+import hwu.elixir.scrape.scraper.StatementFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +40,10 @@ public class ScraperProperties extends Properties {
 	private static Logger logger = LoggerFactory.getLogger(ScraperProperties.class.getName());
 	private String dateTime;
 	private static String finalAppVersion = "0.6.0";
+	// analytics and tracking hosts; they never carry markup
+	private static final String DEFAULT_BLOCKED_HOSTS = "*.google-analytics.com,*.googletagmanager.com,*.doubleclick.net,"
+			+ "connect.facebook.net,*.hotjar.com,*.matomo.cloud,*.newrelic.com,*.nr-data.net,*.segment.com,*.segment.io,"
+			+ "*.mixpanel.com,*.clarity.ms,*.quantserve.com,*.scorecardresearch.com";
 
 	/**
 	 * Non public constructor: this class should be instantiated only using
@@ -74,6 +81,31 @@ public class ScraperProperties extends Properties {
 			properties.put("maxLimitScrape", props.getProperty("maxLimitScrape").trim());
 			properties.put("dynamic", props.getProperty("dynamic").trim());
 			properties.put("schemaContext", props.getProperty("schemaContext").trim());
+			properties.put("chromeDriverPoolSize", props.getProperty("chromeDriverPoolSize", "1").trim());
+			properties.put("chromeRecycleAfterPages", props.getProperty("chromeRecycleAfterPages", "500").trim());
+			properties.put("chromeMaxRssMb", props.getProperty("chromeMaxRssMb", "2048").trim());
+			properties.put("renderMaxWait", props.getProperty("renderMaxWait", "10000").trim());
+			properties.put("domQuietMillis", props.getProperty("domQuietMillis", "1000").trim());
+			properties.put("fastRender", props.getProperty("fastRender", "false").trim());
+			properties.put("blockedHosts", props.getProperty("blockedHosts", DEFAULT_BLOCKED_HOSTS).trim());
+			properties.put("scraperThreads", props.getProperty("scraperThreads", "1").trim());
+			properties.put("hostCrawlDelay", props.getProperty("hostCrawlDelay", "1000").trim());
+			properties.put("hostMaxConcurrency", props.getProperty("hostMaxConcurrency", "1").trim());
+			properties.put("sharedHttpClient", props.getProperty("sharedHttpClient", "true").trim());
+			properties.put("httpConnectTimeout", props.getProperty("httpConnectTimeout", "10000").trim());
+			properties.put("httpRequestTimeout", props.getProperty("httpRequestTimeout", "30000").trim());
+			properties.put("asyncFetchInFlight", props.getProperty("asyncFetchInFlight", "0").trim());
+			properties.put("revalidationStoreFile", props.getProperty("revalidationStoreFile", "").trim());
+			properties.put("htmlArchiveFile", props.getProperty("htmlArchiveFile", "").trim());
+			properties.put("schemaContextRefreshHours", props.getProperty("schemaContextRefreshHours", "168").trim());
+			properties.put("schemaContextCacheFile", props.getProperty("schemaContextCacheFile", "").trim());
+			properties.put("extractMicrodata", props.getProperty("extractMicrodata", "true").trim());
+			properties.put("iriCacheSize", props.getProperty("iriCacheSize", "10000").trim());
+			properties.put("skolemization", props.getProperty("skolemization", "random").trim());
+			properties.put("filterDeny", props.getProperty("filterDeny", StatementFilter.Rules.DEFAULT_DENY).trim());
+			properties.put("filterAllow", props.getProperty("filterAllow", "").trim());
+			properties.put("outputBufferKb", props.getProperty("outputBufferKb", "256").trim());
+			properties.put("outputFlushSeconds", props.getProperty("outputFlushSeconds", "5").trim());
 
 			if (props.containsKey("contextCounter"))
 				properties.put("contextCounter", props.getProperty("contextCounter").trim());
@@ -100,7 +132,28 @@ public class ScraperProperties extends Properties {
 		logger.info("contextCounter:                  " + this.getContextCounter());
 		logger.info("Max no. URLs to scrape:          " + this.getMaxLimitScrape());
 		logger.info("Schema.org context URL:          " + this.getSchemaContext());
-		logger.info("Dynamic scrape (global setting): " + this.dynamic());
+		logger.info("Dynamic scrape (global setting): " + (this.autoScrape() ? "auto" : this.dynamic()));
+		logger.info("Chrome driver pool size:         " + this.getChromeDriverPoolSize());
+		logger.info("Chrome recycled after pages/MB:  " + this.getChromeRecycleAfterPages() + "/" + this.getChromeMaxRssMb());
+		logger.info("Render max wait/DOM quiet:       " + this.getRenderMaxWait() + "ms/" + this.getDomQuietMillis() + "ms");
+		logger.info("Fast render profile (chrome):    " + this.useFastRender());
+		logger.info("Hosts blocked when rendering:    " + this.getBlockedHosts());
+		logger.info("Concurrent scraper workers:      " + this.getScraperThreads());
+		logger.info("Delay between requests to host:  " + this.getHostCrawlDelay() + "ms");
+		logger.info("Max concurrent requests to host: " + this.getHostMaxConcurrency());
+		logger.info("Shared http client (static):     " + this.useSharedHttpClient());
+		logger.info("Http connect/request timeout:    " + this.getHttpConnectTimeout() + "ms/" + this.getHttpRequestTimeout() + "ms");
+		logger.info("Async static fetches in flight:  " + this.getAsyncFetchInFlight());
+		logger.info("Revalidation store file:         " + this.getRevalidationStoreFile());
+		logger.info("HTML archive file:               " + this.getHtmlArchiveFile());
+		logger.info("Schema.org context refresh/file: " + this.getSchemaContextRefreshHours() + "h/" + this.getSchemaContextCacheFile());
+		logger.info("Extract microdata:               " + this.extractMicrodata());
+		logger.info("IRI cache size:                  " + this.getIriCacheSize());
+		logger.info("Blank nodes replaced by:         " + properties.getProperty("skolemization") + " IRIs");
+		logger.info("Statements dropped:              " + this.getFilterDeny());
+		logger.info("Statements kept:                 " + this.getFilterAllow());
+		logger.info("Output buffer (KB):              " + this.getOutputBufferKb());
+		logger.info("Output flushed after (seconds):  " + this.getOutputFlushSeconds());
 
 	}
 
@@ -236,6 +289,14 @@ public class ScraperProperties extends Properties {
 		return Boolean.parseBoolean(properties.getProperty("dynamic"));
 	}
 
+	/**
+	 * @return true if property dynamic is <i>auto</i>: pages are fetched
+	 *         statically and only rendered if no markup is found
+	 */
+	public boolean autoScrape() {
+		return properties.getProperty("dynamic").equalsIgnoreCase("auto");
+	}
+
 	public String getChromiumDriverLocation() {
 		return properties.getProperty("chromiumDriverLocation");
 	}
@@ -244,6 +305,184 @@ public class ScraperProperties extends Properties {
 		return properties.getProperty("schemaContext");
 	}
 
+	public int getChromeDriverPoolSize() {
+		return Integer.parseInt(properties.getProperty("chromeDriverPoolSize"));
+	}
+
+	/**
+	 * @return Number of pages after which a chrome driver is replaced; 0 for never
+	 */
+	public int getChromeRecycleAfterPages() {
+		return Integer.parseInt(properties.getProperty("chromeRecycleAfterPages"));
+	}
+
+	/**
+	 * @return Memory (MB) used by a chrome driver and its browser after which it
+	 *         is replaced; 0 for no limit
+	 */
+	public long getChromeMaxRssMb() {
+		return Long.parseLong(properties.getProperty("chromeMaxRssMb"));
+	}
+
+	/**
+	 * @return Longest time, in milliseconds, to wait for a rendered page to show
+	 *         its markup
+	 */
+	public long getRenderMaxWait() {
+		return Long.parseLong(properties.getProperty("renderMaxWait"));
+	}
+
+	/**
+	 * @return true if chrome should skip images, fonts, stylesheets, media and
+	 *         the blocked hosts
+	 */
+	public boolean useFastRender() {
+		return Boolean.parseBoolean(properties.getProperty("fastRender"));
+	}
+
+	/**
+	 * @return Hosts chrome never contacts when rendering; may start with "*." to
+	 *         include the domain and its sub domains
+	 */
+	public List<String> getBlockedHosts() {
+		List<String> hosts = new ArrayList<String>();
+		for (String host : properties.getProperty("blockedHosts").split(",")) {
+			if (!host.trim().isEmpty())
+				hosts.add(host.trim());
+		}
+		return hosts;
+	}
+
+	/**
+	 * @return Time, in milliseconds, without DOM changes after which a rendered
+	 *         page is taken to be complete
+	 */
+	public long getDomQuietMillis() {
+		return Long.parseLong(properties.getProperty("domQuietMillis"));
+	}
+
+	public int getScraperThreads() {
+		return Integer.parseInt(properties.getProperty("scraperThreads"));
+	}
+
+	public long getHostCrawlDelay() {
+		return Long.parseLong(properties.getProperty("hostCrawlDelay"));
+	}
+
+	public int getHostMaxConcurrency() {
+		return Integer.parseInt(properties.getProperty("hostMaxConcurrency"));
+	}
+
+	public boolean useSharedHttpClient() {
+		return Boolean.parseBoolean(properties.getProperty("sharedHttpClient"));
+	}
+
+	public long getHttpConnectTimeout() {
+		return Long.parseLong(properties.getProperty("httpConnectTimeout"));
+	}
+
+	/**
+	 * @return Time allowed for a whole request of the shared http client, from
+	 *         sending it to reading all of the response, in milliseconds
+	 */
+	public long getHttpRequestTimeout() {
+		return Long.parseLong(properties.getProperty("httpRequestTimeout"));
+	}
+
+	/**
+	 * @return Number of static pages fetched asynchronously at once; 0 to fetch
+	 *         static pages one at a time per worker
+	 */
+	public int getAsyncFetchInFlight() {
+		return Integer.parseInt(properties.getProperty("asyncFetchInFlight"));
+	}
+
+	/**
+	 * @return File holding ETag/Last-Modified of pages already scraped, or empty
+	 *         if recrawls should not be revalidated
+	 */
+	public String getRevalidationStoreFile() {
+		return properties.getProperty("revalidationStoreFile");
+	}
+
+	/**
+	 * @return File the HTML of every page scraped is archived to, or empty if
+	 *         HTML should not be archived
+	 */
+	public String getHtmlArchiveFile() {
+		return properties.getProperty("htmlArchiveFile");
+	}
+
+	/**
+	 * @return Hours after which the cached schema.org context is downloaded
+	 *         again; 0 to never download it
+	 */
+	public long getSchemaContextRefreshHours() {
+		return Long.parseLong(properties.getProperty("schemaContextRefreshHours"));
+	}
+
+	/**
+	 * @return File the downloaded schema.org context is kept in between runs, or
+	 *         empty to keep it in memory only
+	 */
+	public String getSchemaContextCacheFile() {
+		return properties.getProperty("schemaContextCacheFile");
+	}
+
+	/**
+	 * @return true if microdata is extracted as well as JSON-LD and RDFa
+	 */
+	public boolean extractMicrodata() {
+		return Boolean.parseBoolean(properties.getProperty("extractMicrodata"));
+	}
+
+	/**
+	 * @return Most normalised predicates, and most normalised object IRIs,
+	 *         remembered; 0 to remember none
+	 */
+	public int getIriCacheSize() {
+		return Integer.parseInt(properties.getProperty("iriCacheSize"));
+	}
+
+	/**
+	 * @return true if property skolemization is <i>hash</i>: blank nodes are
+	 *         replaced by IRIs that are the same every time a page is scraped
+	 */
+	public boolean hashSkolemization() {
+		return properties.getProperty("skolemization").equalsIgnoreCase("hash");
+	}
+
+	/**
+	 * @return Comma separated rules for the statements dropped; see
+	 *         {@link StatementFilter.Rules}
+	 */
+	public String getFilterDeny() {
+		return properties.getProperty("filterDeny");
+	}
+
+	/**
+	 * @return Comma separated rules for the statements kept, or empty to keep all
+	 *         those not dropped; see {@link StatementFilter.Rules}
+	 */
+	public String getFilterAllow() {
+		return properties.getProperty("filterAllow");
+	}
+
+	/**
+	 * @return Size of the buffer quads are written through, in KB
+	 */
+	public int getOutputBufferKb() {
+		return Integer.parseInt(properties.getProperty("outputBufferKb"));
+	}
+
+	/**
+	 * @return Seconds after which buffered quads are written out even if the
+	 *         buffer is not full; 0 to wait until it is
+	 */
+	public long getOutputFlushSeconds() {
+		return Long.parseLong(properties.getProperty("outputFlushSeconds"));
+	}
+
 	public String getScraperVersion() {
 		return properties.getProperty("scraperVersion");
 	}
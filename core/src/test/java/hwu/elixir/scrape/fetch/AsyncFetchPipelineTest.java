@@ -0,0 +1,141 @@
+package hwu.elixir.scrape.fetch;
+
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class AsyncFetchPipelineTest {
+
+	private HttpServer server;
+	private String base;
+	private AsyncFetchPipeline pipeline;
+
+	@Before
+	public void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			byte[] body = ("<html><body>" + path + "</body></html>").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(path.startsWith("/missing") ? 404 : 200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+		base = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void stopServer() {
+		if (pipeline != null)
+			pipeline.shutdown();
+		server.stop(0);
+	}
+
+	@Test
+	public void test_submit_allPagesExtracted() throws Exception {
+		pipeline = new AsyncFetchPipeline(new StaticFetchEngine(5000, 5000), 4, 2);
+
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			futures.add(pipeline.submit(base + "/page" + i, 0, result -> new String(result.getBody(), StandardCharsets.UTF_8)));
+		}
+		CompletableFuture<Integer> missing = pipeline.submit(base + "/missing", 0, FetchResult::getStatusCode);
+		pipeline.awaitCompletion();
+
+		for (int i = 0; i < 40; i++) {
+			assertTrue(futures.get(i).isDone());
+			assertEquals("<html><body>/page" + i + "</body></html>", futures.get(i).get());
+		}
+		assertEquals(404, missing.get().intValue());
+	}
+
+	@Test
+	public void test_submit_invalidUrlFails() throws Exception {
+		pipeline = new AsyncFetchPipeline(new StaticFetchEngine(5000, 5000), 1, 1);
+
+		CompletableFuture<Integer> future = pipeline.submit("not a url", 0, FetchResult::getStatusCode);
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("expected the fetch to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+		// the failed page does not hold on to its place
+		assertEquals(200, pipeline.submit(base + "/page", 0, FetchResult::getStatusCode).get(5, TimeUnit.SECONDS).intValue());
+	}
+
+	@Test
+	public void test_submit_blocksWhenFull() throws Exception {
+		pipeline = new AsyncFetchPipeline(new StaticFetchEngine(5000, 5000), 2, 2);
+		CountDownLatch release = new CountDownLatch(1);
+
+		for (int i = 0; i < 2; i++) {
+			pipeline.submit(base + "/slow" + i, 0, result -> {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return true;
+			});
+		}
+
+		AtomicBoolean submitted = new AtomicBoolean(false);
+		Thread third = new Thread(() -> {
+			try {
+				pipeline.submit(base + "/third", 0, FetchResult::getStatusCode);
+				submitted.set(true);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		third.start();
+		third.join(500);
+		assertFalse("pipeline should be full", submitted.get());
+
+		release.countDown();
+		third.join(5000);
+		assertTrue(submitted.get());
+		pipeline.awaitCompletion();
+	}
+
+	@Test
+	public void test_awaitCompletion_waitsForHandlers() throws Exception {
+		pipeline = new AsyncFetchPipeline(new StaticFetchEngine(5000, 5000), 4, 2);
+		AtomicInteger handled = new AtomicInteger();
+
+		for (int i = 0; i < 8; i++) {
+			pipeline.submit(base + "/page" + i, 0, FetchResult::getStatusCode, (status, failure) -> {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				handled.incrementAndGet();
+			});
+		}
+		// the handler of a page that cannot be fetched also runs
+		pipeline.submit("not a url", 0, FetchResult::getStatusCode, (status, failure) -> {
+			assertNotNull(failure);
+			handled.incrementAndGet();
+		});
+		pipeline.awaitCompletion();
+
+		assertEquals(9, handled.get());
+	}
+}
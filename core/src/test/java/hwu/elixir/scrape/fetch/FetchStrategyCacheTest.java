@@ -0,0 +1,75 @@
+package hwu.elixir.scrape.fetch;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FetchStrategyCacheTest {
+
+	@Test
+	public void test_containsMarkup() {
+		assertTrue(FetchStrategyCache.containsMarkup("<script type=\"application/ld+json\">{}</script>"));
+		assertTrue(FetchStrategyCache.containsMarkup("<SCRIPT TYPE='APPLICATION/LD+JSON'>{}</SCRIPT>"));
+		assertTrue(FetchStrategyCache.containsMarkup("<div vocab=\"http://schema.org/\" typeof=\"Dataset\">"));
+		assertTrue(FetchStrategyCache.containsMarkup("<body vocab=\"https://schema.org/\">"));
+
+		assertFalse(FetchStrategyCache.containsMarkup(null));
+		assertFalse(FetchStrategyCache.containsMarkup(""));
+		assertFalse(FetchStrategyCache.containsMarkup("<html><body><div id=\"app\"></div><script src=\"app.js\"></script></body></html>"));
+	}
+
+	@Test
+	public void test_unknownHost() {
+		FetchStrategyCache cache = new FetchStrategyCache();
+		assertNull(cache.get("https://www.example.org/a"));
+		assertFalse(cache.renderFirst("https://www.example.org/a"));
+		assertTrue(cache.renderIfNoMarkup("https://www.example.org/a"));
+	}
+
+	@Test
+	public void test_staticHost() {
+		FetchStrategyCache cache = new FetchStrategyCache();
+		cache.record("https://www.example.org/a", FetchStrategyCache.Strategy.STATIC);
+
+		assertEquals(FetchStrategyCache.Strategy.STATIC, cache.get("https://WWW.example.org/b"));
+		assertFalse(cache.renderFirst("https://www.example.org/b"));
+		assertFalse(cache.renderIfNoMarkup("https://www.example.org/b"));
+		// other hosts are not affected
+		assertTrue(cache.renderIfNoMarkup("https://other.example.org/b"));
+	}
+
+	@Test
+	public void test_staticHost_reprobed() {
+		FetchStrategyCache cache = new FetchStrategyCache();
+		cache.record("https://www.example.org/a", FetchStrategyCache.Strategy.STATIC);
+
+		int rendered = 0;
+		for (int i = 0; i < FetchStrategyCache.REPROBE_INTERVAL * 2; i++) {
+			if (cache.renderIfNoMarkup("https://www.example.org/page" + i))
+				rendered++;
+		}
+		assertEquals(2, rendered);
+
+		// site changed to need rendering
+		cache.record("https://www.example.org/a", FetchStrategyCache.Strategy.DYNAMIC);
+		assertTrue(cache.renderIfNoMarkup("https://www.example.org/b"));
+	}
+
+	@Test
+	public void test_dynamicHost_reprobed() {
+		FetchStrategyCache cache = new FetchStrategyCache();
+		cache.record("https://www.example.org/a", FetchStrategyCache.Strategy.DYNAMIC);
+		assertTrue(cache.renderIfNoMarkup("https://www.example.org/b"));
+
+		int staticTries = 0;
+		for (int i = 0; i < FetchStrategyCache.REPROBE_INTERVAL * 2; i++) {
+			if (!cache.renderFirst("https://www.example.org/page" + i))
+				staticTries++;
+		}
+		assertEquals(2, staticTries);
+
+		// site changed to serve static markup
+		cache.record("https://www.example.org/a", FetchStrategyCache.Strategy.STATIC);
+		assertFalse(cache.renderFirst("https://www.example.org/b"));
+	}
+}
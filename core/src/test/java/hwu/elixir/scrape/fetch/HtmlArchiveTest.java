@@ -0,0 +1,73 @@
+package hwu.elixir.scrape.fetch;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HtmlArchiveTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String html = "<html><head><script type=\"application/ld+json\">{\"name\": \"café\"}</script></head></html>";
+
+	@Test
+	public void test_disabled() {
+		HtmlArchive archive = new HtmlArchive(null);
+		assertFalse(archive.isEnabled());
+		archive.append("https://www.example.org/", 1L, html);
+		archive.close();
+	}
+
+	@Test
+	public void test_appendAndRead() throws Exception {
+		File file = new File(folder.getRoot(), "sub/archive.gz");
+
+		HtmlArchive archive = new HtmlArchive(file);
+		archive.append("https://www.example.org/a", 1000L, html);
+		archive.append("https://www.example.org/b", 2000L, "");
+		archive.close();
+
+		// a later run appends to the same archive
+		archive = new HtmlArchive(file);
+		archive.append("https://www.example.org/a", 3000L, html + "<!-- again -->");
+		archive.close();
+
+		List<HtmlArchive.ArchivedPage> pages = new ArrayList<>();
+		assertEquals(3, HtmlArchive.read(file, pages::add));
+
+		assertEquals("https://www.example.org/a", pages.get(0).getUrl());
+		assertEquals(1000L, pages.get(0).getFetchTime());
+		assertEquals(html, pages.get(0).getHtml());
+		assertEquals("", pages.get(1).getHtml());
+		assertEquals(3000L, pages.get(2).getFetchTime());
+		assertEquals(html + "<!-- again -->", pages.get(2).getHtml());
+	}
+
+	@Test
+	public void test_read_incompleteLastRecord() throws Exception {
+		File file = folder.newFile("archive.gz");
+
+		HtmlArchive archive = new HtmlArchive(file);
+		archive.append("https://www.example.org/a", 1000L, html);
+		archive.close();
+		long complete = file.length();
+		archive.append("https://www.example.org/b", 2000L, html);
+		archive.close();
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(complete + (file.length() - complete) / 2);
+		}
+
+		List<HtmlArchive.ArchivedPage> pages = new ArrayList<>();
+		assertEquals(1, HtmlArchive.read(file, pages::add));
+		assertEquals("https://www.example.org/a", pages.get(0).getUrl());
+	}
+}
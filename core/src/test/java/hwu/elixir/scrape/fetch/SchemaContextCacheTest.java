@@ -0,0 +1,186 @@
+package hwu.elixir.scrape.fetch;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.rio.helpers.StatementCollector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.jsonldjava.core.JsonLdOptions;
+import com.github.jsonldjava.core.JsonLdProcessor;
+import com.github.jsonldjava.core.RDFDataset;
+import com.github.jsonldjava.utils.JsonUtils;
+
+import hwu.elixir.scrape.scraper.JsonLdTripleExtractor;
+
+public class SchemaContextCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final String FRESH = "{\"@context\":{\"@vocab\":\"http://schema.org/\",\"fresh\":\"http://example.org/fresh\"}}";
+	private static final String SAVED = "{\"@context\":{\"@vocab\":\"http://schema.org/\",\"url\":{\"@id\":\"http://schema.org/url\",\"@type\":\"@id\"}}}";
+
+	private Path saved() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("saved.jsonld");
+		Files.write(file, SAVED.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private String object(SchemaContextCache cache, String json) throws Exception {
+		JsonLdOptions options = new JsonLdOptions("https://www.example.org/page");
+		options.setDocumentLoader(cache.getDocumentLoader());
+		RDFDataset dataset = (RDFDataset) JsonLdProcessor.toRDF(JsonUtils.fromString(json), options);
+		assertEquals(1, dataset.getQuads("@default").size());
+		return dataset.getQuads("@default").get(0).getPredicate().getValue() + " "
+				+ dataset.getQuads("@default").get(0).getObject().getValue();
+	}
+
+	@Test
+	public void test_savedCopyServedOffline() throws Exception {
+		SchemaContextCache cache = new SchemaContextCache(SchemaContextCache.SCHEMA_ORG_CONTEXTS, 0, saved(), null, () -> {
+			throw new AssertionError("refresh interval 0 never downloads");
+		});
+
+		for (String url : SchemaContextCache.SCHEMA_ORG_CONTEXTS) {
+			assertTrue(cache.isKnown(url));
+			// url is a URL-valued property, so its value is an IRI
+			assertEquals("http://schema.org/url https://www.example.org/x", object(cache,
+					"{\"@context\":\"" + url + "\",\"@id\":\"#a\",\"url\":\"x\"}"));
+		}
+		assertFalse(cache.isKnown("https://bioschemas.org/context.jsonld"));
+
+		// the shared context is not changed by use
+		assertTrue(((Map<?, ?>) cache.getContext()).get("@context") instanceof Map);
+		assertEquals("http://schema.org/name bob", object(cache,
+				"{\"@context\":\"https://schema.org\",\"@id\":\"#a\",\"name\":\"bob\"}"));
+	}
+
+	@Test
+	public void test_startsFromSnapshot() throws Exception {
+		// nothing saved and no snapshot: no copy to serve
+		SchemaContextCache offline = new SchemaContextCache(SchemaContextCache.SCHEMA_ORG_CONTEXTS, 0, null, null, () -> {
+			throw new AssertionError("refresh interval 0 never downloads");
+		});
+		offline.getDocumentLoader();
+		assertNull(offline.getContext());
+		assertNull(offline.getProcessedContext("https://www.example.org/page"));
+
+		// nothing saved: the snapshot is served at once, while the download refreshes it in the background
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger downloads = new AtomicInteger();
+		SchemaContextCache cache = new SchemaContextCache(SchemaContextCache.SCHEMA_ORG_CONTEXTS, 60 * 60 * 1000L,
+				null, SAVED, () -> {
+					downloads.incrementAndGet();
+					release.await();
+					return FRESH;
+				});
+		assertEquals("http://schema.org/url https://www.example.org/x",
+				object(cache, "{\"@context\":\"https://schema.org\",\"@id\":\"#a\",\"url\":\"x\"}"));
+		release.countDown();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (cache.getContext().toString().indexOf("fresh") < 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, downloads.get());
+		assertEquals("http://example.org/fresh 1",
+				object(cache, "{\"@context\":\"https://schema.org\",\"@id\":\"#a\",\"fresh\":\"1\"}"));
+	}
+
+	@Test
+	public void test_shippedSnapshot() throws Exception {
+		// the snapshot on the classpath is a valid context, registered with the jsonld-java document loader
+		SchemaContextCache cache = SchemaContextCache.getInstance();
+		assertNotNull(cache.getContext());
+		Map<?, ?> context = (Map<?, ?>) ((Map<?, ?>) cache.getContext()).get("@context");
+		assertEquals("http://schema.org/", context.get("@vocab"));
+
+		JsonLdOptions options = new JsonLdOptions("https://www.example.org/page");
+		RDFDataset dataset = (RDFDataset) JsonLdProcessor.toRDF(JsonUtils.fromString(
+				"{\"@context\":\"https://schema.org/\",\"@id\":\"#a\",\"url\":\"x\"}"), options);
+		assertEquals("https://www.example.org/x", dataset.getQuads("@default").get(0).getObject().getValue());
+	}
+
+	@Test
+	public void test_processedContext() throws Exception {
+		SchemaContextCache cache = new SchemaContextCache(SchemaContextCache.SCHEMA_ORG_CONTEXTS, 0, saved(), null, () -> {
+			throw new AssertionError("refresh interval 0 never downloads");
+		});
+		assertEquals("https://www.example.org/page", cache.getProcessedContext("https://www.example.org/page").get("@base"));
+		assertNotSame(cache.getProcessedContext("https://www.example.org/page"),
+				cache.getProcessedContext("https://www.example.org/page"));
+
+		Model processed = new LinkedHashModel();
+		Model loaded = new LinkedHashModel();
+		String block = "{\"@context\":[\"https://schema.org\",{\"fresh\":\"http://example.org/fresh\"}],"
+				+ "\"@id\":\"#a\",\"url\":\"x\",\"fresh\":\"1\"}";
+		new JsonLdTripleExtractor(cache).extractBlock(block, "https://www.example.org/page",
+				new StatementCollector(processed));
+		new JsonLdTripleExtractor(cache.getDocumentLoader()).extractBlock(block, "https://www.example.org/page",
+				new StatementCollector(loaded));
+
+		assertEquals(2, processed.size());
+		assertEquals(loaded, processed);
+	}
+
+	@Test
+	public void test_refreshReplacesAndSaves() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("sub/schemaorg.jsonld");
+		AtomicInteger downloads = new AtomicInteger();
+		SchemaContextCache cache = new SchemaContextCache(SchemaContextCache.SCHEMA_ORG_CONTEXTS, 60 * 60 * 1000L,
+				file, null, () -> {
+					downloads.incrementAndGet();
+					return FRESH;
+				});
+
+		assertTrue(cache.refresh());
+		assertEquals(1, downloads.get());
+		assertEquals("http://example.org/fresh 1",
+				object(cache, "{\"@context\":\"https://schema.org\",\"@id\":\"#a\",\"fresh\":\"1\"}"));
+		assertEquals(FRESH, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+		// not due again, so no download
+		cache.refreshIfStale();
+		assertEquals(1, downloads.get());
+
+		// the next run starts from the saved copy
+		SchemaContextCache next = new SchemaContextCache(SchemaContextCache.SCHEMA_ORG_CONTEXTS, 0, file, null, () -> {
+			throw new AssertionError("refresh interval 0 never downloads");
+		});
+		assertEquals("http://example.org/fresh 1",
+				object(next, "{\"@context\":\"https://schema.org\",\"@id\":\"#a\",\"fresh\":\"1\"}"));
+	}
+
+	@Test
+	public void test_failedRefreshKeepsContext() throws Exception {
+		Path file = saved();
+		SchemaContextCache cache = new SchemaContextCache(SchemaContextCache.SCHEMA_ORG_CONTEXTS, 60 * 60 * 1000L,
+				file, null, () -> "<html>Service Unavailable</html>");
+		Object before = cache.getContext();
+
+		assertFalse(cache.refresh());
+		assertSame(before, cache.getContext());
+		assertEquals(SAVED, new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+		cache = new SchemaContextCache(SchemaContextCache.SCHEMA_ORG_CONTEXTS, 60 * 60 * 1000L, file, null, () -> {
+			throw new IOException("offline");
+		});
+		before = cache.getContext();
+		assertFalse(cache.refresh());
+		assertSame(before, cache.getContext());
+		assertEquals("http://schema.org/name bob", object(cache,
+				"{\"@context\":\"https://schema.org\",\"@id\":\"#a\",\"name\":\"bob\"}"));
+	}
+}
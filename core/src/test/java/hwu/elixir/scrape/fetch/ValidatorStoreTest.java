@@ -0,0 +1,75 @@
+package hwu.elixir.scrape.fetch;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ValidatorStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String url = "https://www.example.org/page";
+
+	@Test
+	public void test_disabled() {
+		ValidatorStore store = new ValidatorStore(null);
+		assertFalse(store.isEnabled());
+
+		store.offer(url, "\"abc\"", null);
+		store.commit(url, "out/1.nq", "https://bioschemas.org/crawl/v1/example/page/20200101/1");
+		assertNull(store.get(url));
+		store.save();
+	}
+
+	@Test
+	public void test_commitOnlyAfterOffer() {
+		ValidatorStore store = new ValidatorStore(folder.getRoot().toPath().resolve("validators.tsv"));
+		assertTrue(store.isEnabled());
+
+		// nothing offered: output alone is not enough to revalidate
+		store.commit(url, "out/1.nq", "https://bioschemas.org/crawl/v1/example/page/20200101/1");
+		assertNull(store.get(url));
+
+		// no validators sent by the server
+		store.offer(url, null, null);
+		store.commit(url, "out/1.nq", "https://bioschemas.org/crawl/v1/example/page/20200101/1");
+		assertNull(store.get(url));
+
+		store.offer(url, "\"abc\"", null);
+		assertNull(store.get(url));
+		store.commit(url, "out/1.nq", "https://bioschemas.org/crawl/v1/example/page/20200101/1");
+		assertEquals("\"abc\"", store.get(url).getEtag());
+		assertNull(store.get(url).getLastModified());
+
+		store.remove(url);
+		assertNull(store.get(url));
+	}
+
+	@Test
+	public void test_saveAndLoad() {
+		Path file = folder.getRoot().toPath().resolve("sub/validators.tsv");
+		ValidatorStore store = new ValidatorStore(file);
+		store.offer(url, "W/\"abc\"", "Wed, 21 Oct 2015 07:28:00 GMT");
+		store.commit(url, "out/1.nq", "https://bioschemas.org/crawl/v1/example/page/20200101/1");
+		store.offer("https://www.example.org/other", null, "Thu, 22 Oct 2015 07:28:00\tGMT");
+		store.commit("https://www.example.org/other", "out/2.nq", "https://bioschemas.org/crawl/v1/example/other/20200101/2");
+		store.save();
+
+		ValidatorStore loaded = new ValidatorStore(file);
+		assertEquals(2, loaded.size());
+		ValidatorStore.Validators v = loaded.get(url);
+		assertEquals("W/\"abc\"", v.getEtag());
+		assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", v.getLastModified());
+		assertEquals("out/1.nq", v.getOutputFile());
+		assertEquals("https://bioschemas.org/crawl/v1/example/page/20200101/1", v.getGraph());
+
+		v = loaded.get("https://www.example.org/other");
+		assertNull(v.getEtag());
+		assertEquals("Thu, 22 Oct 2015 07:28:00 GMT", v.getLastModified());
+	}
+}
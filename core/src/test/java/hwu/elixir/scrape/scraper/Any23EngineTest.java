@@ -0,0 +1,75 @@
+package hwu.elixir.scrape.scraper;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.any23.source.StringDocumentSource;
+import org.apache.any23.writer.CountingTripleHandler;
+import org.junit.Test;
+
+public class Any23EngineTest {
+
+	private String page(String name) throws Exception {
+		File file = new File(getClass().getClassLoader().getResource("testHtml/" + name).getFile());
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void test_detectMarkup() {
+		assertEquals(0, Any23Engine.detectMarkup("<html><head><title>about=x</title></head><body>itemscope</body></html>"));
+		assertEquals(Any23Engine.JSON_LD,
+				Any23Engine.detectMarkup("<script TYPE=\"Application/LD+JSON\">{}</script>"));
+		assertEquals(Any23Engine.RDFA, Any23Engine.detectMarkup("<div vocab=\"http://schema.org/\" typeof =\"Dataset\">"));
+		assertEquals(Any23Engine.MICRODATA, Any23Engine.detectMarkup("<div itemscope itemtype=\"http://schema.org/Dataset\">"));
+		assertEquals(Any23Engine.ALL, Any23Engine.detectMarkup(
+				"<script type='application/ld+json'>{}</script><span about='#x' property='name'>x</span><p ITEMPROP=\"a\">"));
+		// the meta tags of Open Graph are not taken for RDFa
+		assertEquals(0, Any23Engine.detectMarkup(
+				"<meta property=\"og:title\" content=\"x\"><meta property=\"og:image\" content=\"https://www.example.org/x.png\">"));
+	}
+
+	@Test
+	public void test_detectMarkup_relRev() {
+		assertEquals(Any23Engine.RDFA, Any23Engine.detectMarkup("<a rel=\"schema:citation\" href=\"https://doi.org/x\">"));
+		assertEquals(Any23Engine.RDFA, Any23Engine.detectMarkup("<a href=\"x\" REV='https://schema.org/isPartOf'>"));
+		assertEquals(Any23Engine.RDFA, Any23Engine.detectMarkup("<a rel=\"nofollow dc:source\">"));
+		// plain terms are not RDFa without a vocab
+		assertEquals(0, Any23Engine.detectMarkup(
+				"<link rel=\"stylesheet\" href=\"https://www.example.org/s.css\"><a rel=nofollow href=\"http://x.org\">"));
+	}
+
+	@Test
+	public void test_detectMarkup_testPages() throws Exception {
+		assertEquals(Any23Engine.RDFA, Any23Engine.detectMarkup(page("rdfaTestPage.html")) & Any23Engine.RDFA);
+		assertEquals(Any23Engine.JSON_LD, Any23Engine.detectMarkup(page("chembl.html")) & Any23Engine.JSON_LD);
+	}
+
+	@Test
+	public void test_extracts() {
+		Any23Engine engine = new Any23Engine(false);
+		assertEquals(Any23Engine.JSON_LD | Any23Engine.RDFA, engine.getEnabled());
+		assertFalse(engine.extracts(0));
+		assertFalse(engine.extracts(Any23Engine.MICRODATA));
+		assertTrue(engine.extracts(Any23Engine.MICRODATA | Any23Engine.RDFA));
+		assertTrue(new Any23Engine(true).extracts(Any23Engine.MICRODATA));
+	}
+
+	@Test
+	public void test_extract() throws Exception {
+		Any23Engine engine = new Any23Engine(true);
+		String html = page("rdfaTestPage.html");
+		StringDocumentSource source = new StringDocumentSource(html, "https://www.example.org/rdfa");
+
+		CountingTripleHandler counter = new CountingTripleHandler();
+		engine.extract(source, Any23Engine.detectMarkup(html), counter);
+		assertTrue(counter.getCount() > 0);
+
+		// nothing asked for, nothing run
+		counter = new CountingTripleHandler();
+		engine.extract(source, 0, counter);
+		assertEquals(0, counter.getCount());
+	}
+}
@@ -0,0 +1,93 @@
+package hwu.elixir.scrape.scraper;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hwu.elixir.scrape.exceptions.JsonLDInspectionException;
+
+public class JsonLdBlockRewriterTest {
+
+	private static final String CONTEXT = "https://schema.org/docs/jsonldcontext.jsonld";
+	private ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void test_object() throws Exception {
+		String fixed = JsonLdBlockRewriter.rewrite(
+				"{\"@context\": {\"@vocab\": \"http://schema.org/\"}, \"@type\": \"Dataset\", \"name\": \"x\"}",
+				CONTEXT, "http://www.myId.org");
+		assertEquals("{\"@context\":\"" + CONTEXT + "\",\"@type\":\"Dataset\",\"name\":\"x\",\"@id\":\"http://www.myId.org\"}",
+				fixed);
+
+		// an @id is kept, and nested objects are not given one
+		fixed = JsonLdBlockRewriter.rewrite(
+				"{\"@id\": \"http://a.org\", \"author\": {\"@type\": \"Person\", \"@context\": \"x\"}}", CONTEXT,
+				"http://www.myId.org");
+		JsonNode tree = mapper.readTree(fixed);
+		assertEquals("http://a.org", tree.get("@id").asText());
+		assertEquals(CONTEXT, tree.get("@context").asText());
+		assertFalse(tree.get("author").has("@id"));
+		assertEquals("x", tree.get("author").get("@context").asText());
+	}
+
+	@Test
+	public void test_array() throws Exception {
+		String fixed = JsonLdBlockRewriter.rewrite("[{\"name\": \"a\"}, {\"name\": \"b\", \"@id\": \"#b\"}, 3]",
+				CONTEXT, "http://www.myId.org");
+		JsonNode tree = mapper.readTree(fixed);
+		assertEquals(3, tree.size());
+		assertEquals("http://www.myId.org", tree.get(0).get("@id").asText());
+		assertEquals("#b", tree.get(1).get("@id").asText());
+		assertEquals(CONTEXT, tree.get(1).get("@context").asText());
+		assertEquals(3, tree.get(2).asInt());
+	}
+
+	@Test
+	public void test_escapesSurvive() throws Exception {
+		String markup = "{\"name\": \"say \\\"hi\\\"\", \"path\": \"C:\\\\data\\\\x\", \"url\": \"http:\\/\\/a.org\\/\", \"text\": \"\\u00e9\\n\"}";
+		JsonNode tree = mapper.readTree(JsonLdBlockRewriter.rewrite(markup, CONTEXT, "http://www.myId.org"));
+		assertEquals("say \"hi\"", tree.get("name").asText());
+		assertEquals("C:\\data\\x", tree.get("path").asText());
+		assertEquals("http://a.org/", tree.get("url").asText());
+		assertEquals("\u00e9\n", tree.get("text").asText());
+	}
+
+	@Test
+	public void test_scriptEndEscaped() throws Exception {
+		// the value holds the end of a script element, escaped or not
+		String fixed = JsonLdBlockRewriter.rewrite(
+				"{\"name\": \"a <\\/script> b\", \"description\": \"c </script><script>d\"}", CONTEXT,
+				"http://www.myId.org");
+		assertFalse(fixed.contains("</"));
+		assertTrue(fixed.contains("\"a <\\/script> b\""));
+		assertTrue(fixed.contains("\"c <\\/script><script>d\""));
+
+		JsonNode tree = mapper.readTree(fixed);
+		assertEquals("a </script> b", tree.get("name").asText());
+		assertEquals("c </script><script>d", tree.get("description").asText());
+		assertEquals("http://www.myId.org", tree.get("@id").asText());
+	}
+
+	@Test
+	public void test_lenientInStrictOut() throws Exception {
+		String fixed = JsonLdBlockRewriter.rewrite("{ // comment\n name: 'a', \"b\": [1, 2,], }", CONTEXT, "#x");
+		JsonNode tree = mapper.readTree(fixed);
+		assertEquals("a", tree.get("name").asText());
+		assertEquals(2, tree.get("b").size());
+	}
+
+	@Test
+	public void test_invalid() {
+		String[] invalid = { "", "\"just a string\"", "{\"a\": 1", "[{\"a\": 1}", "{\"a\" 1}", "{\"a\": 1} {\"b\": 2}" };
+		for (String markup : invalid) {
+			try {
+				JsonLdBlockRewriter.rewrite(markup, CONTEXT, "#x");
+				fail(markup);
+			} catch (JsonLDInspectionException e) {
+			}
+		}
+	}
+}
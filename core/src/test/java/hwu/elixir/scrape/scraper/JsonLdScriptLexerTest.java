@@ -0,0 +1,108 @@
+package hwu.elixir.scrape.scraper;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+public class JsonLdScriptLexerTest {
+
+	private List<String> bodies(String html) {
+		List<String> bodies = new ArrayList<>();
+		JsonLdScriptLexer lexer = new JsonLdScriptLexer(html);
+		while (lexer.next()) {
+			assertEquals(lexer.getBody().toString(), html.substring(lexer.getStart(), lexer.getEnd()));
+			bodies.add(lexer.getBody().toString());
+		}
+		return bodies;
+	}
+
+	// as the blocks were found before the lexer
+	private List<String> jsoupBodies(String html) {
+		List<String> bodies = new ArrayList<>();
+		for (Element script : Jsoup.parse(html).getElementsByTag("script").select("[type=application/ld+json]")) {
+			String data = script.data();
+			int positionOfClosingTag = data.indexOf("</script");
+			bodies.add(positionOfClosingTag == -1 ? data : data.substring(0, positionOfClosingTag));
+		}
+		return bodies;
+	}
+
+	@Test
+	public void test_attributeVariations() {
+		String html = "<html><head>"
+				+ "<script type=\"application/ld+json\">{\"a\":1}</script>"
+				+ "<SCRIPT TYPE='Application/LD+JSON'>{\"b\":2}</SCRIPT >"
+				+ "<script id=x type=application/ld+json>{\"c\":3}</script>"
+				+ "<script data-x=\">\" type = \" application/ld+json \" async>{\"d\":4}</script>"
+				+ "<script type=\"text/javascript\">var e = '<script type=\"application/ld+json\">';</script>"
+				+ "<script>{\"f\":6}</script>"
+				+ "</head></html>";
+
+		List<String> expected = new ArrayList<>();
+		expected.add("{\"a\":1}");
+		expected.add("{\"b\":2}");
+		expected.add("{\"c\":3}");
+		expected.add("{\"d\":4}");
+		assertEquals(expected, bodies(html));
+		assertEquals(jsoupBodies(html), bodies(html));
+	}
+
+	@Test
+	public void test_strayClosingTagText() {
+		// "</scripts>" does not close the element, but the body stops there
+		String html = "<script type=\"application/ld+json\">{\"a\":\"x\"}</scripts> {\"b\":1}</script/>"
+				+ "<script type=\"application/ld+json\">{\"c\":\"<\\/script>\"}</script>";
+		List<String> found = bodies(html);
+		assertEquals(2, found.size());
+		assertEquals("{\"a\":\"x\"}", found.get(0));
+		assertEquals("{\"c\":\"<\\/script>\"}", found.get(1));
+
+		// end tag without its '>' at the end of the page
+		html = "<body><script type=\"application/ld+json\">{\"a\":1}</script</body></html>";
+		found = bodies(html);
+		assertEquals(1, found.size());
+		assertEquals("{\"a\":1}", found.get(0));
+	}
+
+	@Test
+	public void test_skipsCommentsAndRawText() {
+		String html = "<!-- <script type=\"application/ld+json\">{\"a\":1}</script> -->"
+				+ "<style>p { } /* <script type=\"application/ld+json\">{\"b\":2}</script> */</style>"
+				+ "<textarea><script type=\"application/ld+json\">{\"c\":3}</script></textarea>"
+				+ "<p a=\"<script type='application/ld+json'>\">text</p>"
+				+ "<script type=\"application/ld+json\">{\"d\":4}</script>";
+
+		assertEquals(jsoupBodies(html), bodies(html));
+		assertEquals(1, bodies(html).size());
+	}
+
+	@Test
+	public void test_unclosed() {
+		String html = "<p>x</p><script type=\"application/ld+json\">{\"a\":1}";
+		List<String> found = bodies(html);
+		assertEquals(1, found.size());
+		assertEquals("{\"a\":1}", found.get(0));
+
+		assertTrue(bodies("<script type=\"application/ld+json\"").isEmpty());
+		assertTrue(bodies("<").isEmpty());
+		assertTrue(bodies("").isEmpty());
+	}
+
+	@Test
+	public void test_sameAsJsoupOnTestPages() throws IOException {
+		File folder = new File(getClass().getClassLoader().getResource("testHtml").getFile());
+		for (File file : folder.listFiles()) {
+			String html = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			assertEquals(file.getName(), jsoupBodies(html), bodies(html));
+		}
+	}
+}
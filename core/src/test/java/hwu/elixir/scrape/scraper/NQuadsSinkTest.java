@@ -0,0 +1,117 @@
+package hwu.elixir.scrape.scraper;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.util.ModelBuilder;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NQuadsSinkTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	private Model page(int i) {
+		IRI graph = factory.createIRI("https://bioschemas.org/crawl/v1/" + i);
+		return new ModelBuilder().namedGraph(graph).add("https://example.org/page" + i, "https://schema.org/name",
+				"Page | " + i).build();
+	}
+
+	private String read(File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void test_batchWrittenToOneFile() throws Exception {
+		File file = folder.newFile("out.nq");
+		Files.write(file.toPath(), "old content\n".getBytes(StandardCharsets.UTF_8));
+
+		try (NQuadsSink sink = new NQuadsSink(file, false, 64 * 1024, 0)) {
+			sink.write(page(1));
+			sink.writePageLines("https://example.org/old", Arrays.asList(
+					"<https://example.org/old> <https://schema.org/name> \"old\" <https://bioschemas.org/crawl/v1/0> ."));
+			sink.write(page(2));
+			// nothing written out yet: the buffer is not full and there is no time policy
+			assertEquals("", read(file));
+		}
+
+		Model model = Rio.parse(new FileInputStream(file), "", RDFFormat.NQUADS);
+		assertEquals(3, model.size());
+		assertTrue(model.containsAll(page(1)));
+		assertTrue(model.containsAll(page(2)));
+		assertFalse(read(file).contains("old content"));
+	}
+
+	@Test
+	public void test_pagesMarked() throws Exception {
+		File file = folder.newFile("out.nq");
+
+		try (NQuadsSink sink = new NQuadsSink(file, false, 64 * 1024, 0)) {
+			sink.writePage("https://example.org/page1", page(1));
+			sink.writePage("https://example.org/page2", page(2));
+		}
+
+		String[] lines = read(file).split("\n");
+		assertEquals(4, lines.length);
+		assertEquals(NQuadsSink.pageMarker("https://example.org/page1"), lines[0]);
+		assertTrue(lines[1].startsWith("<https://example.org/page1> "));
+		assertEquals(NQuadsSink.pageMarker("https://example.org/page2"), lines[2]);
+		assertTrue(lines[3].startsWith("<https://example.org/page2> "));
+
+		// markers are comments to parsers
+		assertEquals(2, Rio.parse(new FileInputStream(file), "", RDFFormat.NQUADS).size());
+	}
+
+	@Test
+	public void test_flushPolicyAndReopen() throws Exception {
+		File file = new File(folder.getRoot(), "out.nq");
+
+		NQuadsSink sink = new NQuadsSink(file, false, 64 * 1024, 1);
+		sink.write(page(1));
+		Thread.sleep(5);
+		sink.write(page(2));
+		// due, so written out straight away or by the timer within a tick
+		long deadline = System.currentTimeMillis() + 5000;
+		while (Rio.parse(new FileInputStream(file), "", RDFFormat.NQUADS).size() < 2
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(2, Rio.parse(new FileInputStream(file), "", RDFFormat.NQUADS).size());
+		sink.close();
+
+		// written to after closing: appended
+		sink.write(page(3));
+		sink.close();
+		assertEquals(3, Rio.parse(new FileInputStream(file), "", RDFFormat.NQUADS).size());
+	}
+
+	@Test
+	public void test_flushedInTimeWithoutFurtherWrites() throws Exception {
+		File file = new File(folder.getRoot(), "out.nq");
+
+		try (NQuadsSink sink = new NQuadsSink(file, false, 64 * 1024, 20)) {
+			sink.write(page(1));
+			long deadline = System.currentTimeMillis() + 5000;
+			while (file.length() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			// written out whilst the sink is still open
+			assertEquals(1, Rio.parse(new FileInputStream(file), "", RDFFormat.NQUADS).size());
+		}
+	}
+}
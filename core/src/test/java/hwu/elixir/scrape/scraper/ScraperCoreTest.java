@@ -20,6 +20,8 @@ import org.eclipse.rdf4j.rio.RDFFormat;
 import org.eclipse.rdf4j.rio.Rio;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
@@ -180,6 +182,27 @@ public class ScraperCoreTest {
 
 	//
 
+	@Test
+	public void test_parsePage_jsonLdMatchesReparse() throws IOException {
+		File folder = new File(getClass().getClassLoader().getResource("testHtml").getFile());
+		for (File file : folder.listFiles()) {
+			Document doc = Jsoup.parse(file, "UTF-8").normalise();
+			ParsedPage page = scraperCore.parsePage(doc);
+			String html = page.getHtml();
+
+			// kept from the DOM built at fetch time
+			String[] kept = scraperCore.getOnlyUnfilteredJSONLD(page);
+			// the same HTML on its own is read again
+			String[] reparsed = scraperCore.getOnlyUnfilteredJSONLDFromHtml(html);
+
+			assertTrue(file.getName(), page.hasJsonLd());
+			assertArrayEquals(file.getName(), reparsed, kept);
+			for (String block : kept) {
+				assertTrue(file.getName(), html.contains(block));
+			}
+		}
+	}
+
 	@Test
 	public void test_getOnlyUnfilteredJSONLDFromHtml() {
 		String html = "";
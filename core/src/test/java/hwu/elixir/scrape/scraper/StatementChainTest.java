@@ -0,0 +1,124 @@
+package hwu.elixir.scrape.scraper;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.junit.Test;
+
+public class StatementChainTest {
+
+	private static final ValueFactory factory = SimpleValueFactory.getInstance();
+	private static final IRI GRAPH = factory.createIRI("https://example.org/graph/1");
+
+	private Model run(Statement... statements) {
+		return run(StatementFilter.Rules.DEFAULT, statements);
+	}
+
+	// in the order of ScraperFilteredCore.newTripleChain
+	private Model run(StatementFilter.Rules rules, Statement... statements) {
+		AtomicInteger minted = new AtomicInteger();
+		ModelCollector collector = new ModelCollector();
+		NamedGraphAssigner assigner = new NamedGraphAssigner(collector, GRAPH);
+		assigner.addNamespace("bsc", "https://example.org/graph/");
+		assigner.addHeader(factory.createStatement(GRAPH, factory.createIRI("http://purl.org/pav/retrievedFrom"),
+				factory.createIRI("https://example.org/page")));
+		RDFHandler chain = new StatementFixer(new StatementFilter(new BlankNodeReplacer(assigner,
+				() -> factory.createIRI("https://example.org/node/" + minted.incrementAndGet())), rules),
+				p -> factory.createIRI(p.stringValue().replace("http://schema", "https://schema")), o -> o);
+
+		chain.startRDF();
+		for (Statement st : statements) {
+			chain.handleStatement(st);
+		}
+		chain.endRDF();
+		return collector.getModel();
+	}
+
+	@Test
+	public void test_filterFixAndGraph() {
+		IRI page = factory.createIRI("https://example.org/page");
+		Model model = run(
+				factory.createStatement(page, factory.createIRI("http://schema.org/name"), factory.createLiteral("a")),
+				factory.createStatement(page, factory.createIRI("http://ogp.me/ns#title"), factory.createLiteral("a")),
+				factory.createStatement(page, factory.createIRI("http://vocab.sindice.net/any23#x"),
+						factory.createLiteral("a")),
+				factory.createStatement(page, factory.createIRI("http://www.w3.org/1999/xhtml/vocab#nofollow"),
+						page));
+
+		assertEquals(2, model.size());
+		assertEquals("https://example.org/graph/", model.getNamespace("bsc").get().getName());
+		// the header comes first, on the default graph
+		Statement header = model.iterator().next();
+		assertNull(header.getContext());
+		assertEquals(GRAPH, header.getSubject());
+		assertTrue(model.contains(page, factory.createIRI("https://schema.org/name"), factory.createLiteral("a"),
+				GRAPH));
+	}
+
+	@Test
+	public void test_blankNodesReplacedConsistently() {
+		IRI page = factory.createIRI("https://example.org/page");
+		IRI author = factory.createIRI("https://schema.org/author");
+		IRI name = factory.createIRI("https://schema.org/name");
+		Model model = run(factory.createStatement(page, author, factory.createBNode("b0")),
+				factory.createStatement(factory.createBNode("b0"), name, factory.createLiteral("bob")),
+				factory.createStatement(factory.createBNode("b1"), name, factory.createLiteral("alice")));
+
+		IRI bob = factory.createIRI("https://example.org/node/1");
+		assertTrue(model.contains(page, author, bob, GRAPH));
+		assertTrue(model.contains(bob, name, factory.createLiteral("bob"), GRAPH));
+		assertTrue(model.contains(factory.createIRI("https://example.org/node/2"), name,
+				factory.createLiteral("alice"), GRAPH));
+	}
+
+	@Test
+	public void test_configuredRules() {
+		IRI page = factory.createIRI("https://example.org/page");
+		IRI type = factory.createIRI("http://www.w3.org/1999/02/22-rdf-syntax-ns#type");
+		StatementFilter.Rules rules = StatementFilter.Rules.parse(
+				StatementFilter.Rules.DEFAULT_DENY + ", type:http://schema.org/WebSite",
+				"namespace:http://schema.org/, namespace:https://bioschemas.org/, predicate:" + type);
+
+		assertTrue(rules.accept(
+				factory.createStatement(page, factory.createIRI("http://schema.org/name"), factory.createLiteral("a"))));
+		assertTrue(rules.accept(factory.createStatement(page, type, factory.createIRI("http://schema.org/Dataset"))));
+		assertFalse(rules.accept(factory.createStatement(page, type, factory.createIRI("http://schema.org/WebSite"))));
+		// the type is not in an allowed namespace
+		assertFalse(rules.accept(
+				factory.createStatement(page, type, factory.createIRI("http://xmlns.com/foaf/0.1/Person"))));
+		assertFalse(rules.accept(factory.createStatement(page, factory.createIRI("http://purl.org/dc/terms/title"),
+				factory.createLiteral("a"))));
+		assertFalse(rules.accept(factory.createStatement(page, factory.createIRI("http://ogp.me/ns#title"),
+				factory.createLiteral("a"))));
+
+		assertEquals(4, StatementFilter.Rules.DEFAULT.size());
+	}
+
+	@Test
+	public void test_rulesSeeFixedIris() {
+		// a rule for https://schema.org drops the statements the page wrote with http://schema.org
+		IRI page = factory.createIRI("https://example.org/page");
+		Model model = run(StatementFilter.Rules.parse("predicate:https://schema.org/description", ""),
+				factory.createStatement(page, factory.createIRI("http://schema.org/description"),
+						factory.createLiteral("a")),
+				factory.createStatement(page, factory.createIRI("https://schema.org/description"),
+						factory.createLiteral("b")),
+				factory.createStatement(page, factory.createIRI("http://schema.org/name"), factory.createLiteral("c")));
+
+		assertEquals(2, model.size());
+		assertTrue(model.contains(page, factory.createIRI("https://schema.org/name"), factory.createLiteral("c"),
+				GRAPH));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_badRule() {
+		StatementFilter.Rules.parse("schema.org", "");
+	}
+}
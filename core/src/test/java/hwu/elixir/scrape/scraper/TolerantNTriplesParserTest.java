@@ -0,0 +1,96 @@
+package hwu.elixir.scrape.scraper;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.helpers.StatementCollector;
+import org.junit.Test;
+
+public class TolerantNTriplesParserTest {
+
+	private static final ValueFactory factory = SimpleValueFactory.getInstance();
+
+	@Test
+	public void test_badLinesRepairedOrSkipped() {
+		String nTriples = "<http://a.org/x> <http://b.org/p> <http://a.org/y|z> .\n"
+				+ "<http://a.org/x> <http://b.org/p> \"a | b\" .\n"
+				+ "_:node1 <http://b.org/p> <http://a.org/ok> .\n"
+				+ "this is not a triple .\n"
+				+ "# a comment\n"
+				+ "\n"
+				+ "<http://a.org/x> <http://b.org/p{1}> _:node1 .\n";
+
+		TolerantNTriplesParser parser = new TolerantNTriplesParser();
+		ModelCollector collector = new ModelCollector();
+		parser.parse(nTriples, collector);
+		Model model = collector.getModel();
+
+		assertEquals(4, model.size());
+		assertEquals(2, parser.getRepaired());
+		assertEquals(1, parser.getSkipped());
+
+		IRI x = factory.createIRI("http://a.org/x");
+		assertTrue(model.contains(x, factory.createIRI("http://b.org/p"), factory.createIRI("http://a.org/y%7Cz")));
+		// literals are left alone
+		assertTrue(model.contains(x, factory.createIRI("http://b.org/p"), factory.createLiteral("a | b")));
+
+		// the blank node of the repaired line is the one of the rest of the page
+		BNode node = (BNode) model.filter(x, factory.createIRI("http://b.org/p%7B1%7D"), null).objects().iterator()
+				.next();
+		Resource subject = model.filter(null, null, factory.createIRI("http://a.org/ok")).subjects().iterator().next();
+		assertEquals(subject, node);
+	}
+
+	@Test
+	public void test_repair() {
+		assertEquals("<http://a.org/y%7Cz> <http://b.org/p> \"<x|y> \\\" |\" .",
+				TolerantNTriplesParser.repair("<http://a.org/y|z> <http://b.org/p> \"<x|y> \\\" |\" ."));
+		assertEquals("<http://a.org/x> <http://b.org/p> \"a\" .",
+				TolerantNTriplesParser.repair("<http://a.org/x> <http://b.org/p> \"a\" ."));
+	}
+
+	@Test
+	public void test_repairedLineKeepsItsPlace() {
+		String nTriples = "_:b1 <http://b.org/p> \"1\" .\n"
+				+ "_:b2 <http://b.org/p|q> \"2\" .\n"
+				+ "_:b3 <http://b.org/p> \"3\" .\n";
+
+		List<Statement> statements = new ArrayList<>();
+		TolerantNTriplesParser parser = new TolerantNTriplesParser();
+		parser.parse(nTriples, new StatementCollector(statements));
+
+		assertEquals(1, parser.getRepaired());
+		assertEquals(3, statements.size());
+		for (int i = 0; i < 3; i++) {
+			assertEquals("b" + (i + 1), statements.get(i).getSubject().stringValue());
+		}
+		assertEquals("http://b.org/p%7Cq", statements.get(1).getPredicate().stringValue());
+	}
+
+	@Test
+	public void test_repairKeepsEscapes() {
+		assertEquals("<http://a.org/caf\\u00E9%7Cx%5Cy> <http://b.org/p> \"a\" .",
+				TolerantNTriplesParser.repair("<http://a.org/caf\\u00E9|x\\y> <http://b.org/p> \"a\" ."));
+		assertEquals("<http://a.org/\\U0001F600%7B%7D> <http://b.org/p> \"a\" .",
+				TolerantNTriplesParser.repair("<http://a.org/\\U0001F600{}> <http://b.org/p> \"a\" ."));
+	}
+
+	@Test
+	public void test_sameRuleAsTripleHandler() {
+		IRI iri = factory.createIRI("http://a.org/y|z{1}");
+		assertEquals("<" + StatementTripleHandler.clean(iri).stringValue() + "> <http://b.org/p> \"a\" .",
+				TolerantNTriplesParser.repair("<http://a.org/y|z{1}> <http://b.org/p> \"a\" ."));
+
+		IRI ok = factory.createIRI("http://a.org/ok");
+		assertSame(ok, StatementTripleHandler.clean(ok));
+	}
+}
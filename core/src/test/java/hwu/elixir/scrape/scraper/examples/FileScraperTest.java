@@ -0,0 +1,80 @@
+package hwu.elixir.scrape.scraper.examples;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpServer;
+
+import hwu.elixir.utils.PolitenessScheduler;
+
+public class FileScraperTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HttpServer server;
+	private int port;
+
+	@Before
+	public void startServer() throws Exception {
+		// every page has JSON-LD that cannot be read, so every page ends up on the unscraped list
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			byte[] body = ("<html><head><script type=\"application/ld+json\">"
+					+ "{\"@context\": \"https://schema.org\", \"@type\": \"Dataset\", \"name\": </script>"
+					+ "</head><body></body></html>").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+		port = server.getAddress().getPort();
+	}
+
+	@After
+	public void stopServer() {
+		server.stop(0);
+	}
+
+	@Test
+	public void test_scrapeLines_concurrently() throws Exception {
+		List<String> urls = Arrays.asList("http://127.0.0.1:" + port + "/a", "http://127.0.0.1:" + port + "/b",
+				"http://localhost:" + port + "/c", "http://localhost:" + port + "/d");
+		String[] lines = new String[urls.size()];
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = urls.get(i) + ",static";
+		}
+		File outputFolder = folder.newFolder();
+		AtomicLong contextCounter = new AtomicLong(10);
+
+		new FileScraper().scrapeLines(Arrays.asList(lines), new PolitenessScheduler(0, 2), contextCounter,
+				outputFolder.getPath(), 3);
+
+		// one value claimed for each line, and each failed line listed under its own value
+		assertEquals(14, contextCounter.get());
+		Set<String> unscraped = new HashSet<>();
+		for (long counter = 10; counter < 14; counter++) {
+			File list = new File(outputFolder, "unscraped_" + counter + ".txt");
+			assertTrue(list.getName(), list.exists());
+			List<String> listed = Files.readAllLines(list.toPath());
+			assertEquals(list.getName(), 1, listed.size());
+			unscraped.add(listed.get(0));
+		}
+		assertEquals(new HashSet<>(urls), unscraped);
+	}
+}
@@ -0,0 +1,48 @@
+package hwu.elixir.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+public class ChromeDriverCreatorTest {
+
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> chromeOptions(ChromeOptions options) {
+		return (Map<String, Object>) options.asMap().get(ChromeOptions.CAPABILITY);
+	}
+
+	@Test
+	public void test_applyFastRenderProfile() {
+		ChromeOptions options = new ChromeOptions();
+		ChromeDriverCreator.applyFastRenderProfile(options, Arrays.asList("*.google-analytics.com", "connect.facebook.net"));
+
+		assertEquals("eager", options.asMap().get("pageLoadStrategy").toString());
+
+		List<String> args = (List<String>) chromeOptions(options).get("args");
+		assertTrue(args.contains("--blink-settings=imagesEnabled=false"));
+		assertTrue(args.contains("--disable-remote-fonts"));
+		assertTrue(args.contains("--host-resolver-rules=MAP google-analytics.com ~NOTFOUND, MAP *.google-analytics.com ~NOTFOUND, "
+				+ "MAP connect.facebook.net ~NOTFOUND"));
+
+		Map<String, Object> prefs = (Map<String, Object>) chromeOptions(options).get("prefs");
+		assertEquals(2, prefs.get("profile.managed_default_content_settings.images"));
+		assertEquals(2, prefs.get("profile.managed_default_content_settings.stylesheets"));
+	}
+
+	@Test
+	public void test_applyFastRenderProfile_noBlockedHosts() {
+		ChromeOptions options = new ChromeOptions();
+		ChromeDriverCreator.applyFastRenderProfile(options, Collections.<String>emptyList());
+
+		List<String> args = (List<String>) chromeOptions(options).get("args");
+		for (String arg : args) {
+			assertFalse(arg.startsWith("--host-resolver-rules"));
+		}
+	}
+}
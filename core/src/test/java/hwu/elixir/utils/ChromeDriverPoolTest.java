@@ -0,0 +1,138 @@
+package hwu.elixir.utils;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+public class ChromeDriverPoolTest {
+
+	private List<WebDriver> started = new ArrayList<>();
+
+	private WebDriver newDriver() {
+		WebDriver driver = mock(WebDriver.class);
+		started.add(driver);
+		return driver;
+	}
+
+	@Test
+	public void test_borrow_startsDriversUpToMaxSize() throws Exception {
+		ChromeDriverPool pool = new ChromeDriverPool(2, 0, 0, this::newDriver);
+
+		WebDriver first = pool.borrow();
+		WebDriver second = pool.borrow();
+		assertNotSame(first, second);
+		assertEquals(2, pool.size());
+
+		// a third borrower waits until a driver is returned
+		AtomicReference<WebDriver> third = new AtomicReference<>();
+		Thread borrower = new Thread(() -> third.set(pool.borrow()));
+		borrower.start();
+		borrower.join(300);
+		assertNull(third.get());
+
+		pool.release(second);
+		borrower.join(5000);
+		assertSame(second, third.get());
+		assertEquals(2, started.size());
+	}
+
+	@Test
+	public void test_invalidate_freesPlace() {
+		ChromeDriverPool pool = new ChromeDriverPool(1, 0, 0, this::newDriver);
+
+		WebDriver first = pool.borrow();
+		pool.invalidate(first);
+		verify(first).quit();
+		assertEquals(0, pool.size());
+
+		// does not block, as the crashed driver no longer holds the only place
+		WebDriver second = pool.borrow();
+		assertNotSame(first, second);
+		assertEquals(1, pool.size());
+	}
+
+	@Test
+	public void test_killAndReopen_restartsDriver() {
+		ChromeDriverPool pool = new ChromeDriverPool(1, 0, 0, this::newDriver);
+
+		WebDriver first = pool.borrow();
+		WebDriver restarted = pool.killAndReopen(first);
+		verify(first).quit();
+		assertNotSame(first, restarted);
+		assertEquals(1, pool.getCrashCount());
+		assertEquals(1, pool.size());
+
+		// the new driver keeps the place of the old one
+		pool.release(restarted);
+		assertSame(restarted, pool.borrow());
+		assertEquals(2, started.size());
+	}
+
+	@Test
+	public void test_release_reusesDriver() {
+		ChromeDriverPool pool = new ChromeDriverPool(1, 0, 0, this::newDriver);
+
+		WebDriver first = pool.borrow();
+		pool.release(first);
+		assertSame(first, pool.borrow());
+		assertEquals(1, started.size());
+		assertEquals(0, pool.getRecycleCount());
+	}
+
+	@Test
+	public void test_release_recyclesAfterPages() {
+		ChromeDriverPool pool = new ChromeDriverPool(1, 2, 0, this::newDriver);
+
+		WebDriver first = pool.borrow();
+		pool.release(first);
+		assertSame(first, pool.borrow());
+		pool.release(first);
+
+		verify(first).quit();
+		assertEquals(1, pool.getRecycleCount());
+		assertEquals(0, pool.size());
+
+		WebDriver second = pool.borrow();
+		assertNotSame(first, second);
+		assertEquals(2, started.size());
+	}
+
+	@Test
+	public void test_crashesCounted() {
+		ChromeDriverPool pool = new ChromeDriverPool(1, 0, 0, this::newDriver);
+
+		pool.invalidate(pool.borrow());
+		assertEquals(1, pool.getCrashCount());
+
+		// dead idle driver is evicted by the health check
+		WebDriver driver = pool.borrow();
+		pool.release(driver);
+		when(driver.getWindowHandle()).thenThrow(new WebDriverException("gone"));
+		assertNotSame(driver, pool.borrow());
+		assertEquals(2, pool.getCrashCount());
+		assertEquals(0, pool.getRecycleCount());
+	}
+
+	@Test
+	public void test_shutdown_quitsDriversWhenReleased() {
+		ChromeDriverPool pool = new ChromeDriverPool(2, 0, 0, this::newDriver);
+
+		WebDriver idle = pool.borrow();
+		WebDriver busy = pool.borrow();
+		pool.release(idle);
+		pool.shutdown();
+		verify(idle).quit();
+		verify(busy, never()).quit();
+
+		pool.release(busy);
+		verify(busy).quit();
+		assertEquals(0, pool.size());
+	}
+}
@@ -0,0 +1,59 @@
+package hwu.elixir.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.Test;
+
+public class IriCacheTest {
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private IRI upper(String raw) {
+		calls.incrementAndGet();
+		return SimpleValueFactory.getInstance().createIRI(raw.toUpperCase());
+	}
+
+	@Test
+	public void test_hitReturnsSameInstance() {
+		IriCache cache = new IriCache(100, this::upper);
+
+		IRI first = cache.get("http://schema.org/name");
+		assertEquals("HTTP://SCHEMA.ORG/NAME", first.stringValue());
+		assertSame(first, cache.get("http://schema.org/name"));
+		assertSame(first, cache.get("http://schema.org/name"));
+
+		assertEquals(1, calls.get());
+		assertEquals(2, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(2.0 / 3, cache.getHitRate(), 1e-9);
+	}
+
+	@Test
+	public void test_boundedKeepsHotEntries() {
+		IriCache cache = new IriCache(10, this::upper);
+		IRI hot = cache.get("http://schema.org/name");
+
+		for (int i = 0; i < 1000; i++) {
+			cache.get("http://example.org/record/" + i);
+			assertSame(hot, cache.get("http://schema.org/name"));
+			assertTrue(cache.size() <= 10);
+		}
+		assertEquals(1001, calls.get());
+		assertTrue(cache.getEvictions() > 0);
+	}
+
+	@Test
+	public void test_sizeZeroCachesNothing() {
+		IriCache cache = new IriCache(0, this::upper);
+		cache.get("http://schema.org/name");
+		cache.get("http://schema.org/name");
+
+		assertEquals(2, calls.get());
+		assertEquals(0, cache.size());
+		assertEquals(0.0, cache.getHitRate(), 0);
+	}
+}
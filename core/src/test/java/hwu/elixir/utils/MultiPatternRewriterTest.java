@@ -0,0 +1,78 @@
+package hwu.elixir.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MultiPatternRewriterTest {
+
+	private MultiPatternRewriter any23() {
+		Map<String, String> replacements = new LinkedHashMap<>();
+		replacements.put("license", "licensE");
+		replacements.put("fileFormat", "FileFormat");
+		replacements.put("additionalType", "addType");
+		return new MultiPatternRewriter(replacements);
+	}
+
+	@Test
+	public void test_rewrite_sameAsReplace() {
+		String[] texts = { "", "license", "xlicensex", "licenselicense", "liclicense fileFormatadditionalType",
+				"<div>license</div> file format file Format \tFile Format fileFormat<p></p>\n additionalType",
+				"licens fileForma additional Type", "élicenseé", "lllicense" };
+
+		MultiPatternRewriter rewriter = any23();
+		for (String text : texts) {
+			String expected = text.replace("license", "licensE").replace("fileFormat", "FileFormat")
+					.replace("additionalType", "addType");
+			assertEquals(text, expected, rewriter.rewrite(text));
+		}
+	}
+
+	@Test
+	public void test_rewrite_noMatchReturnsSameString() {
+		String text = "nothing to see here";
+		assertSame(text, any23().rewrite(text));
+	}
+
+	@Test
+	public void test_reverse() {
+		MultiPatternRewriter rewriter = any23();
+		MultiPatternRewriter undo = rewriter.reverse();
+
+		String text = "https://schema.org/license https://schema.org/fileFormat https://schema.org/additionalType";
+		assertEquals("https://schema.org/licensE https://schema.org/FileFormat https://schema.org/addType",
+				rewriter.rewrite(text));
+		assertEquals(text, undo.rewrite(rewriter.rewrite(text)));
+	}
+
+	@Test
+	public void test_failureLinks() {
+		Map<String, String> replacements = new LinkedHashMap<>();
+		replacements.put("aab", "X");
+		replacements.put("cd", "Y");
+		MultiPatternRewriter rewriter = new MultiPatternRewriter(replacements);
+
+		assertEquals("aX", rewriter.rewrite("aaab"));
+		assertEquals("XY", rewriter.rewrite("aabcd"));
+		assertEquals("aacY", rewriter.rewrite("aaccd"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_overlappingPatterns() {
+		Map<String, String> replacements = new LinkedHashMap<>();
+		replacements.put("abc", "1");
+		replacements.put("cde", "2");
+		new MultiPatternRewriter(replacements);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_containedPatterns() {
+		Map<String, String> replacements = new LinkedHashMap<>();
+		replacements.put("license", "1");
+		replacements.put("cens", "2");
+		new MultiPatternRewriter(replacements);
+	}
+}
@@ -0,0 +1,52 @@
+package hwu.elixir.utils;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PageReadinessTest {
+
+	@Test
+	public void test_budgetFor_unknownHostGetsMaximum() {
+		PageReadiness readiness = new PageReadiness(1000, 10000);
+		assertEquals(10000, readiness.budgetFor("https://www.example.org/a"));
+	}
+
+	@Test
+	public void test_budgetFor_learnedPerHost() {
+		PageReadiness readiness = new PageReadiness(1000, 10000);
+		readiness.recordReadyTime("https://fast.example.org/a", 1000);
+		assertEquals(3000, readiness.budgetFor("https://fast.example.org/b"));
+		assertEquals(10000, readiness.budgetFor("https://other.example.org/b"));
+
+		// moving average: 1000 + 0.3 * (2000 - 1000)
+		readiness.recordReadyTime("https://fast.example.org/c", 2000);
+		assertEquals(3900, readiness.budgetFor("https://fast.example.org/b"));
+	}
+
+	@Test
+	public void test_budgetFor_growsAfterTimeouts() {
+		PageReadiness readiness = new PageReadiness(1000, 10000);
+		readiness.recordReadyTime("https://slow.example.org/a", 1000);
+		assertEquals(3000, readiness.budgetFor("https://slow.example.org/a"));
+
+		// timed out after the whole budget: 1000 + 0.3 * (3000 - 1000)
+		readiness.recordTimeout("https://slow.example.org/b");
+		assertEquals(4800, readiness.budgetFor("https://slow.example.org/a"));
+
+		for (int i = 0; i < 5; i++) {
+			readiness.recordTimeout("https://slow.example.org/b");
+		}
+		assertEquals(10000, readiness.budgetFor("https://slow.example.org/a"));
+	}
+
+	@Test
+	public void test_budgetFor_clamped() {
+		PageReadiness readiness = new PageReadiness(1000, 10000);
+		readiness.recordReadyTime("https://fast.example.org/a", 10);
+		assertEquals(PageReadiness.MIN_BUDGET, readiness.budgetFor("https://fast.example.org/a"));
+
+		readiness.recordReadyTime("https://slow.example.org/a", 8000);
+		assertEquals(10000, readiness.budgetFor("https://slow.example.org/a"));
+	}
+}
@@ -0,0 +1,111 @@
+package hwu.elixir.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class PolitenessSchedulerTest {
+
+	@Test
+	public void test_getHost() {
+		assertEquals("www.ebi.ac.uk", PolitenessScheduler.getHost("https://WWW.ebi.ac.uk/biosamples/sitemap/29"));
+		assertEquals("not a url", PolitenessScheduler.getHost("not a url"));
+	}
+
+	@Test
+	public void test_run_allTasksComplete() {
+		PolitenessScheduler scheduler = new PolitenessScheduler(0, 2);
+		AtomicInteger done = new AtomicInteger();
+		for (int i = 0; i < 50; i++) {
+			scheduler.submit("https://host" + (i % 5) + ".org/page" + i, done::incrementAndGet);
+		}
+		// a failing task must not stop the others
+		scheduler.submit("https://host0.org/broken", () -> {
+			throw new IllegalStateException("broken");
+		});
+
+		scheduler.run(4);
+		assertEquals(50, done.get());
+	}
+
+	@Test
+	public void test_cancel_fromTask() {
+		PolitenessScheduler scheduler = new PolitenessScheduler(0, 1);
+		AtomicInteger done = new AtomicInteger();
+		AtomicInteger dropped = new AtomicInteger();
+		scheduler.submit("https://one.org/stop", () -> dropped.set(scheduler.cancel()));
+		for (int i = 0; i < 10; i++) {
+			scheduler.submit("https://one.org/page" + i, done::incrementAndGet);
+		}
+
+		// one worker and one host: the first task runs alone and drops the rest
+		scheduler.run(1);
+		assertEquals(0, done.get());
+		assertEquals(10, dropped.get());
+	}
+
+	@Test
+	public void test_run_respectsConcurrencyAndDelayPerHost() {
+		long delay = 100;
+		PolitenessScheduler scheduler = new PolitenessScheduler(delay, 1);
+		ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+		List<Long> starts = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger maxInFlight = new AtomicInteger();
+
+		for (int i = 0; i < 4; i++) {
+			scheduler.submit("https://slow.org/" + i, () -> {
+				starts.add(System.currentTimeMillis());
+				int now = inFlight.computeIfAbsent("slow", h -> new AtomicInteger()).incrementAndGet();
+				maxInFlight.accumulateAndGet(now, Math::max);
+				inFlight.get("slow").decrementAndGet();
+			});
+		}
+		AtomicInteger otherHost = new AtomicInteger();
+		for (int i = 0; i < 4; i++) {
+			scheduler.submit("https://other" + i + ".org/", otherHost::incrementAndGet);
+		}
+
+		scheduler.run(4);
+
+		assertEquals(1, maxInFlight.get());
+		assertEquals(4, otherHost.get());
+		assertEquals(4, starts.size());
+		Collections.sort(starts);
+		for (int i = 1; i < starts.size(); i++) {
+			// allow a little slack for timer granularity
+			assertTrue("requests to one host too close together", starts.get(i) - starts.get(i - 1) >= delay - 5);
+		}
+	}
+
+	@Test
+	public void test_acquire_limitsAsyncRequestsPerHost() throws Exception {
+		PolitenessScheduler scheduler = new PolitenessScheduler(0, 2);
+		scheduler.acquire("https://busy.org/1");
+		scheduler.acquire("https://busy.org/2");
+		// another host is not held up
+		scheduler.acquire("https://other.org/1");
+
+		AtomicInteger acquired = new AtomicInteger();
+		Thread third = new Thread(() -> {
+			try {
+				scheduler.acquire("https://busy.org/3");
+				acquired.incrementAndGet();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		third.start();
+		third.join(300);
+		assertEquals(0, acquired.get());
+
+		scheduler.release("https://busy.org/1");
+		third.join(5000);
+		assertEquals(1, acquired.get());
+	}
+}
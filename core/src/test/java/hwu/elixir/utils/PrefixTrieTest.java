@@ -0,0 +1,44 @@
+package hwu.elixir.utils;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PrefixTrieTest {
+
+	@Test
+	public void test_anchoredAndAnywhere() {
+		PrefixTrie trie = new PrefixTrie().add("http://ogp.me/", false).add("nofollow", true).build();
+
+		assertTrue(trie.matches("http://ogp.me/ns#title"));
+		assertFalse(trie.matches("https://example.org/http://ogp.me/"));
+		assertTrue(trie.matches("http://www.w3.org/1999/xhtml/vocab#nofollow"));
+		assertTrue(trie.matches("nofollow"));
+		assertFalse(trie.matches("http://www.w3.org/1999/xhtml/vocab#nofollo"));
+		assertFalse(trie.matches(""));
+	}
+
+	@Test
+	public void test_sharedPrefixes() {
+		PrefixTrie trie = new PrefixTrie().add("https://schema.org/name", false)
+				.add("https://schema.org/identifier", false).add("https://schema.org/name", false).build();
+
+		assertEquals(2, trie.size());
+		assertTrue(trie.matches("https://schema.org/name"));
+		assertTrue(trie.matches("https://schema.org/identifierType"));
+		assertFalse(trie.matches("https://schema.org/"));
+		assertFalse(trie.matches("https://schema.org/nam"));
+	}
+
+	@Test
+	public void test_empty() {
+		PrefixTrie trie = new PrefixTrie().build();
+		assertTrue(trie.isEmpty());
+		assertFalse(trie.matches("https://schema.org/name"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void test_notBuilt() {
+		new PrefixTrie().add("a", false).matches("a");
+	}
+}
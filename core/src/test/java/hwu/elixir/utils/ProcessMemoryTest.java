@@ -0,0 +1,19 @@
+package hwu.elixir.utils;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+public class ProcessMemoryTest {
+
+	@Test
+	public void test_rssKb_currentProcess() {
+		assumeTrue(new File("/proc/self/status").exists());
+		long rss = ProcessMemory.rssKb(ProcessHandle.current());
+		// a running JVM uses at least a few MB
+		assertTrue(rss > 1024);
+	}
+}
@@ -1,10 +1,10 @@
 package hwu.elixir.scrape.scraper;
 
 import java.io.ByteArrayOutputStream;
+import java.util.Date;
 
 import hwu.elixir.scrape.exceptions.*;
 import org.apache.any23.source.DocumentSource;
-import org.apache.any23.source.StringDocumentSource;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Model;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
@@ -40,27 +40,13 @@ public class WebScraper extends ScraperFilteredCore {
 			logger.error(e.toString());
 		}
 
-		// write html markup blocks in ntriples form
-		DocumentSource source = new StringDocumentSource(html, url);
+		// extract the markup straight into a model
+		DocumentSource source = new HtmlDocumentSource(html, url);
 		IRI sourceIRI = SimpleValueFactory.getInstance().createIRI(source.getDocumentIRI());
-		String n3 = getTriplesInNTriples(source);
-		
-		if (n3 == null) {
-			throw new MissingMarkupException(url);
-		}
-
-		Model updatedModel = null;
-
-		try {
-			updatedModel = processTriples(n3, sourceIRI, 0L);
-		} catch (NTriplesParsingException e1) {
-			logger.error("Failed to process triples into model; the NTriples generated from the URL (" + url
-					+ ") could not be parsed into a model.");
-		}
+		Model updatedModel = processTriples(source, sourceIRI, 0L, new Date());
 
 		if (updatedModel == null) {
-			logger.error("Model is null");
-			throw new Exception("Cannot build model for " + url);
+			throw new MissingMarkupException(url);
 		}
 		
 		JSONArray outputArray = new JSONArray();